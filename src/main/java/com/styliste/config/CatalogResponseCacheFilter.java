@@ -0,0 +1,96 @@
+package com.styliste.config;
+
+import com.styliste.service.CatalogResponseCache;
+import com.styliste.service.CatalogResponseCache.CachedResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// Serves the public catalog listings (GET /api/products, /api/products/category/{category},
+// /api/categories) from CatalogResponseCache, bypassing MVC, Jackson and Hibernate on a hit.
+// Sits inside the security chain after CORS, so cached responses still get CORS headers.
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern CACHEABLE_PATHS =
+            Pattern.compile("^/api/(products|products/category/[^/]+|categories)/?$");
+
+    private final CatalogResponseCache catalogResponseCache;
+
+    public CatalogResponseCacheFilter(CatalogResponseCache catalogResponseCache) {
+        this.catalogResponseCache = catalogResponseCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || !CACHEABLE_PATHS.matcher(path(request)).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        boolean acceptsGzip = acceptsGzip(request);
+
+        CachedResponse cached = catalogResponseCache.get(key);
+        if (cached != null) {
+            byte[] body = acceptsGzip ? cached.getGzippedBody() : cached.getBody();
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(cached.getContentType());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            return;
+        }
+
+        long generation = catalogResponseCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && contentType != null
+                && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            catalogResponseCache.put(key, contentType, wrapper.getContentAsByteArray(), generation);
+        }
+        wrapper.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        wrapper.copyBodyToResponse();
+    }
+
+    // Path plus query parameters sorted by name (and value), so ?pageSize=12&page=0 and
+    // ?page=0&pageSize=12 share an entry
+    private static String cacheKey(HttpServletRequest request) {
+        Map<String, String[]> sorted = new TreeMap<>(request.getParameterMap());
+        StringBuilder key = new StringBuilder(path(request));
+        char separator = '?';
+        for (Map.Entry<String, String[]> entry : sorted.entrySet()) {
+            String[] values = entry.getValue().clone();
+            Arrays.sort(values);
+            for (String value : values) {
+                key.append(separator).append(entry.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
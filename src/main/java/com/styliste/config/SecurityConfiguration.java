@@ -3,6 +3,7 @@ package com.styliste.config;
 import com.styliste.security.JwtAuthenticationFilter;
 import com.styliste.security.CustomUserDetailsService;
 import com.styliste.security.JwtAuthenticationEntryPoint;
+import com.styliste.service.CatalogResponseCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +32,7 @@ public class SecurityConfiguration {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private final CatalogResponseCache catalogResponseCache;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -75,12 +77,20 @@ public class SecurityConfiguration {
                         // 👇 3. THIS IS THE FIX: Allow access to uploaded images
                         .requestMatchers("/uploads/**").permitAll()
 
+                        // Operational endpoints (cache stats etc.)
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        // @PreAuthorize is off (no @EnableMethodSecurity), so admin-only actions outside /api/admin need a rule here
+                        .requestMatchers(HttpMethod.PATCH, "/api/products/*/hot-inventory").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/orders/status/bulk").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/users/scroll", "/api/orders/scroll", "/api/appointments/scroll").hasRole("ADMIN")
+
                         // 2. PROTECTED ENDPOINTS (Token Required)
                         // Note: Specific role checks are handled in Controllers via @PreAuthorize
                         .anyRequest().authenticated()
                 )
                 .authenticationProvider(authenticationProvider())
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class) // Add JWT Check
+                .addFilterAfter(new CatalogResponseCacheFilter(catalogResponseCache), UsernamePasswordAuthenticationFilter.class)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()));
 
         return http.build();
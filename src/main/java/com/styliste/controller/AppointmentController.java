@@ -124,6 +124,15 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.getAllAppointments(page, pageSize));
     }
 
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<AppointmentDTO>> scrollAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+        log.info("Scrolling appointments");
+        return ResponseEntity.ok(appointmentService.scrollAppointments(cursor, pageSize));
+    }
+
     @GetMapping("/date/{date}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<AppointmentDTO>> getAppointmentsByDate(
@@ -0,0 +1,38 @@
+package com.styliste.controller;
+
+import com.styliste.dto.CacheStatsDTO;
+import com.styliste.service.CartService;
+import com.styliste.service.CatalogResponseCache;
+import com.styliste.service.OrderTrackingCache;
+import com.styliste.service.ProductCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private OrderTrackingCache orderTrackingCache;
+
+    @Autowired
+    private CartService cartService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(List.of(productCache.stats(), catalogResponseCache.stats(),
+                orderTrackingCache.stats(), cartService.stats()));
+    }
+}
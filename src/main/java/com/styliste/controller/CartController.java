@@ -0,0 +1,79 @@
+package com.styliste.controller;
+
+import com.styliste.dto.*;
+import com.styliste.entity.User;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.UserRepository;
+import com.styliste.service.CartService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+// The signed-in customer's cart. Every change answers with a fresh quote; checkout places the
+// order from the cart's lines.
+@Slf4j
+@RestController
+@RequestMapping("/api/cart")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('CUSTOMER')")
+public class CartController {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @GetMapping("/quote")
+    public ResponseEntity<CartQuoteDTO> getQuote(
+            @RequestParam(required = false) String reservationId,
+            Authentication authentication) {
+        return ResponseEntity.ok(cartService.quote(extractUserIdFromAuth(authentication), reservationId));
+    }
+
+    @PostMapping("/items")
+    public ResponseEntity<CartQuoteDTO> addItem(@Valid @RequestBody CartItemDTO item, Authentication authentication) {
+        return ResponseEntity.ok(cartService.addItem(extractUserIdFromAuth(authentication), item));
+    }
+
+    @PutMapping("/items/{lineId}")
+    public ResponseEntity<CartQuoteDTO> updateItem(
+            @PathVariable Long lineId,
+            @Valid @RequestBody UpdateCartItemRequest request,
+            Authentication authentication) {
+        return ResponseEntity.ok(cartService.updateItem(extractUserIdFromAuth(authentication), lineId, request.getQuantity()));
+    }
+
+    @DeleteMapping("/items/{lineId}")
+    public ResponseEntity<CartQuoteDTO> removeItem(@PathVariable Long lineId, Authentication authentication) {
+        return ResponseEntity.ok(cartService.removeItem(extractUserIdFromAuth(authentication), lineId));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clearCart(Authentication authentication) {
+        cartService.clear(extractUserIdFromAuth(authentication));
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderDTO> checkout(
+            @Valid @RequestBody CheckoutRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication) {
+        log.info("Checking out cart for authenticated user");
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(cartService.checkout(extractUserIdFromAuth(authentication), request, idempotencyKey));
+    }
+
+    private Long extractUserIdFromAuth(Authentication authentication) {
+        String email = authentication.getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        return user.getId();
+    }
+}
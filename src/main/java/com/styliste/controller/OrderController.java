@@ -5,16 +5,31 @@ import com.styliste.entity.OrderStatus;
 import com.styliste.entity.User;
 import com.styliste.exception.ResourceNotFoundException;
 import com.styliste.repository.UserRepository;
+import com.styliste.service.IdempotencyService;
+import com.styliste.service.InvoiceService;
+import com.styliste.service.OrderBulkStatusService;
 import com.styliste.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 @Slf4j
@@ -23,24 +38,42 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class OrderController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private OrderService orderService;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderBulkStatusService orderBulkStatusService;
+
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<OrderDTO> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         log.info("Creating order for authenticated user");
 
         // Extract user ID from authentication (you may need to customize this based on your implementation)
         Long userId = extractUserIdFromAuth(authentication);
 
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(orderService.createOrder(userId, request));
+        // Retries carrying the same key get the original order back instead of a new one
+        OrderDTO order = idempotencyKey != null
+                ? idempotencyService.createOrder(userId, idempotencyKey, request)
+                : orderService.createOrder(userId, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
     @GetMapping("/{id}")
@@ -49,6 +82,50 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrderById(id));
     }
 
+    // Streams the stored PDF without reading it into the heap: Tomcat's sendfile when the
+    // connector supports it, otherwise FileChannel.transferTo into the response
+    @GetMapping("/{id}/invoice")
+    public void downloadInvoice(@PathVariable Long id, Authentication authentication,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("Downloading invoice for order ID: {}", id);
+
+        // Owner check first, so nobody else learns whether the invoice exists or is ready
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin && !invoiceService.getOrderOwner(id).equals(extractUserIdFromAuth(authentication))) {
+            log.warn("User {} tried to download the invoice of order {}", authentication.getName(), id);
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        InvoiceService.InvoiceFile invoice = invoiceService.getInvoiceFile(id);
+
+        String etag = "\"" + invoice.getChecksum() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(invoice.getInvoiceNumber() + ".pdf").build().toString());
+        response.setContentLengthLong(invoice.getSize());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, invoice.getPath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, invoice.getSize());
+            return;
+        }
+        try (FileChannel file = FileChannel.open(invoice.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < invoice.getSize()) {
+                position += file.transferTo(position, invoice.getSize() - position, out);
+            }
+        }
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<OrderDTO> updateOrderStatus(
@@ -58,6 +135,31 @@ public class OrderController {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, request));
     }
 
+    // Carrier manifests: a JSON array of {orderId, status, trackingNumber}, or the same as CSV,
+    // either as the raw request body (text/csv, streamed) or as a multipart "file"
+    @PostMapping(value = "/status/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateSummary> bulkUpdateOrderStatus(@RequestBody List<BulkStatusUpdateRow> rows) {
+        log.info("Bulk updating order status for {} rows", rows.size());
+        return ResponseEntity.ok(orderBulkStatusService.apply(rows));
+    }
+
+    @PostMapping(value = "/status/bulk", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateSummary> bulkUpdateOrderStatusCsv(HttpServletRequest request) throws IOException {
+        log.info("Bulk updating order status from CSV body");
+        return ResponseEntity.ok(orderBulkStatusService.applyCsv(request.getInputStream()));
+    }
+
+    @PostMapping(value = "/status/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateSummary> bulkUpdateOrderStatusFile(@RequestPart("file") MultipartFile file) throws IOException {
+        log.info("Bulk updating order status from uploaded file {}", file.getOriginalFilename());
+        try (InputStream csv = file.getInputStream()) {
+            return ResponseEntity.ok(orderBulkStatusService.applyCsv(csv));
+        }
+    }
+
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     public ResponseEntity<Page<OrderDTO>> getUserOrders(
@@ -77,22 +179,34 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders(page, pageSize));
     }
 
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<OrderDTO>> scrollOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+        log.info("Scrolling orders");
+        return ResponseEntity.ok(orderService.scrollOrders(cursor, pageSize));
+    }
+
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable String status) {
+    public ResponseEntity<CursorPage<OrderDTO>> getOrdersByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
         log.info("Fetching orders by status: {}", status);
         try {
             OrderStatus orderStatus = OrderStatus.valueOf(status.toUpperCase());
-            return ResponseEntity.ok(orderService.getOrdersByStatus(orderStatus));
+            return ResponseEntity.ok(orderService.getOrdersByStatus(orderStatus, cursor, pageSize));
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping("/track/{trackingNumber}")
-    public ResponseEntity<OrderDTO> trackOrder(@PathVariable String trackingNumber) {
-        log.info("Tracking order with number: {}", trackingNumber);
-        return ResponseEntity.ok(orderService.getOrderByTrackingNumber(trackingNumber));
+    public ResponseEntity<TrackingDTO> trackOrder(@PathVariable String trackingNumber) {
+        log.debug("Tracking order with number: {}", trackingNumber);
+        return ResponseEntity.ok(orderService.trackOrder(trackingNumber));
     }
 
     @GetMapping("/statistics")
@@ -91,6 +91,14 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    // Flash-sale mode: serve this product's stock from in-memory counters
+    @PatchMapping("/{id}/hot-inventory")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> setHotInventory(@PathVariable Long id, @RequestParam boolean enabled) {
+        productService.setHotInventory(id, enabled);
+        return ResponseEntity.noContent().build();
+    }
+
 
     @GetMapping
     public ResponseEntity<Page<ProductDTO>> getAllProducts(
@@ -100,6 +108,14 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(page, pageSize));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ProductDTO>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+        log.info("Scrolling products");
+        return ResponseEntity.ok(productService.scrollProducts(cursor, pageSize));
+    }
+
     @PostMapping("/search")
     public ResponseEntity<Page<ProductDTO>> searchProducts(@RequestBody ProductFilterRequest filterRequest) {
         log.info("Searching products with filters");
@@ -108,6 +124,13 @@ public class ProductController {
 
 
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SearchSuggestionDTO>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.suggest(query, limit));
+    }
+
     @GetMapping("/category/{category}")
     public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String category) {
         log.info("Fetching products by category: {}", category);
@@ -0,0 +1,58 @@
+package com.styliste.controller;
+
+import com.styliste.dto.CreateReservationRequest;
+import com.styliste.dto.ReservationDTO;
+import com.styliste.entity.User;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.UserRepository;
+import com.styliste.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+// Checkout stock holds. Pass the returned id as reservationId when placing the order.
+@Slf4j
+@RestController
+@RequestMapping("/api/reservations")
+@CrossOrigin(origins = "*")
+public class ReservationController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PostMapping
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ReservationDTO> createReservation(
+            @Valid @RequestBody CreateReservationRequest request,
+            Authentication authentication) {
+        log.info("Creating stock reservation for authenticated user");
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(reservationService.createReservation(extractUserIdFromAuth(authentication), request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReservationDTO> getReservation(@PathVariable String id, Authentication authentication) {
+        return ResponseEntity.ok(reservationService.getReservation(id, extractUserIdFromAuth(authentication)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String id, Authentication authentication) {
+        reservationService.releaseReservation(id, extractUserIdFromAuth(authentication));
+        return ResponseEntity.noContent().build();
+    }
+
+    private Long extractUserIdFromAuth(Authentication authentication) {
+        String email = authentication.getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        return user.getId();
+    }
+}
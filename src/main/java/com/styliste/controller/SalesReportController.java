@@ -0,0 +1,89 @@
+package com.styliste.controller;
+
+import com.styliste.dto.SalesRollupDTO;
+import com.styliste.entity.SalesRollupType;
+import com.styliste.exception.BadRequestException;
+import com.styliste.service.SalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Sales reports, answered from the sales_rollups table. Ranges are whole days, both ends
+// included, defaulting to the last 30 days.
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/sales")
+@CrossOrigin(origins = "*")
+public class SalesReportController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @GetMapping("/revenue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SalesRollupDTO>> getRevenue(
+            @RequestParam(defaultValue = "daily") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        SalesRollupType type;
+        if ("hourly".equalsIgnoreCase(granularity)) {
+            type = SalesRollupType.HOURLY;
+        } else if ("daily".equalsIgnoreCase(granularity)) {
+            type = SalesRollupType.DAILY;
+        } else {
+            throw new BadRequestException("granularity must be hourly or daily");
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(salesRollupService.getRevenue(type, startOf(from, end), end));
+    }
+
+    @GetMapping("/products")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SalesRollupDTO>> getProductSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(salesRollupService.getBreakdown(SalesRollupType.PRODUCT_DAILY, startOf(from, end), end, limit));
+    }
+
+    @GetMapping("/categories")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SalesRollupDTO>> getCategorySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(salesRollupService.getBreakdown(SalesRollupType.CATEGORY_DAILY, startOf(from, end), end, Integer.MAX_VALUE));
+    }
+
+    @GetMapping("/statuses")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SalesRollupDTO>> getStatusBreakdown(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(salesRollupService.getBreakdown(SalesRollupType.STATUS_DAILY, startOf(from, end), end, Integer.MAX_VALUE));
+    }
+
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> startBackfill() {
+        log.info("Starting sales rollup backfill");
+        salesRollupService.startBackfill();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("message", "Sales rollup backfill started"));
+    }
+
+    private static LocalDate startOf(LocalDate from, LocalDate end) {
+        return from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+    }
+}
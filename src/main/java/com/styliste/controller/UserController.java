@@ -1,5 +1,6 @@
 package com.styliste.controller;
 
+import com.styliste.dto.CursorPage;
 import com.styliste.dto.UserDTO;
 import com.styliste.service.UserService;
 import lombok.extern.slf4j.Slf4j;
@@ -28,4 +29,14 @@ public class UserController {
         log.info("Fetching users with Role: {}, Page: {}, Size: {}", role, page, pageSize);
         return ResponseEntity.ok(userService.getAllUsers(role, page, pageSize));
     }
+
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<UserDTO>> scrollUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+        log.info("Scrolling users with Role: {}", role);
+        return ResponseEntity.ok(userService.scrollUsers(role, cursor, pageSize));
+    }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.styliste.dto;
 
 import lombok.*;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,4 +13,6 @@ public class AppointmentStatisticsDTO {
     private Long pendingAppointments;
     private Long confirmedAppointments;
     private Long completedAppointments;
+    // Every status, including those with no rows
+    private Map<String, Long> byStatus;
 }
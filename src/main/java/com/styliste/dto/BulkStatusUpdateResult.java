@@ -0,0 +1,14 @@
+package com.styliste.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateResult {
+    private int row;        // position in the JSON array, or line number in the CSV (both 1-based)
+    private Long orderId;
+    private String outcome; // UPDATED, UNCHANGED, INVALID, NOT_FOUND or CONFLICT
+    private String message;
+}
@@ -0,0 +1,13 @@
+package com.styliste.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateRow {
+    private Long orderId;
+    private String status;
+    private String trackingNumber; // optional; keeps the current one when blank
+}
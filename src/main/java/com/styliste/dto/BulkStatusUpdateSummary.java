@@ -0,0 +1,16 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateSummary {
+    private int total;
+    private int updated;
+    private int unchanged;
+    private int failed;
+    private List<BulkStatusUpdateResult> rows;
+}
@@ -0,0 +1,18 @@
+package com.styliste.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsDTO {
+    private String name;
+    private long entries;
+    private long weightedSize; // approximate bytes held, when the cache is size-bounded
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;     // removed for size or TTL
+    private long invalidations; // removed explicitly after a write
+}
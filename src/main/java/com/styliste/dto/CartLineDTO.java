@@ -0,0 +1,21 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartLineDTO {
+    private Long lineId;
+    private Long productId;
+    private String productName;
+    private String selectedSize;
+    private String selectedColor;
+    private Integer quantity;
+    private BigDecimal unitPrice;  // sale price when there is one
+    private BigDecimal lineTotal;
+    private boolean available;
+    private String message;        // why the line can't be ordered as it is
+}
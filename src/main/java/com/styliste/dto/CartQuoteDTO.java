@@ -0,0 +1,18 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartQuoteDTO {
+    private List<CartLineDTO> lines;
+    private int itemCount;
+    private BigDecimal subtotal;  // available lines only
+    private boolean orderable;    // non-empty and every line available
+    private LocalDateTime quotedAt;
+}
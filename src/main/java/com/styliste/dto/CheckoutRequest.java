@@ -0,0 +1,17 @@
+package com.styliste.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutRequest {
+
+    @NotBlank(message = "Shipping address cannot be blank")
+    private String shippingAddress;
+
+    // Optional: stock held via /api/reservations, passed on to the order
+    private String reservationId;
+}
@@ -16,4 +16,7 @@ public class CreateOrderRequest {
 
     @NotBlank(message = "Shipping address cannot be blank")
     private String shippingAddress;
+
+    // Optional: stock held via /api/reservations, used instead of taking it again
+    private String reservationId;
 }
@@ -0,0 +1,16 @@
+package com.styliste.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreateReservationRequest {
+
+    @NotEmpty(message = "Reservation items cannot be empty")
+    private List<@Valid CartItemDTO> items;
+}
@@ -0,0 +1,41 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// One slice of a keyset-paginated listing. No total count: pass nextCursor back to get
+// the following slice, which costs the same however deep you are.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private String nextCursor; // null on the last slice
+    private boolean hasNext;
+    private int size;
+
+    public static int clampSize(Integer requested, int defaultSize) {
+        if (requested == null) return defaultSize;
+        return Math.max(1, Math.min(requested, MAX_SIZE));
+    }
+
+    // rows must have been fetched with a limit of size + 1; the extra row only tells us there is a next slice
+    public static <E, T> CursorPage<T> fromRows(List<E> rows, int size, Function<E, T> mapper,
+                                                Function<E, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<E> slice = hasNext ? rows.subList(0, size) : rows;
+
+        return CursorPage.<T>builder()
+                .content(slice.stream().map(mapper).collect(Collectors.toList()))
+                .nextCursor(hasNext ? cursorOf.apply(slice.get(slice.size() - 1)) : null)
+                .hasNext(hasNext)
+                .size(slice.size())
+                .build();
+    }
+}
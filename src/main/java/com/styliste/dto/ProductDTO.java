@@ -21,4 +21,5 @@ public class ProductDTO {
     private List<String> videos;
     private List<ProductAttributeDTO> attributes;
     private Boolean isActive;
+    private Boolean hotInventory;
 }
@@ -2,18 +2,21 @@ package com.styliste.dto;
 
 import lombok.*;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ProductFilterRequest {
     private String category;
     private String subcategory;
     private BigDecimal minPrice;
     private BigDecimal maxPrice;
     private String searchQuery;
-    private String sortBy; // "name", "price", "createdAt"
+    private Map<String, List<String>> attributes; // e.g. {"Size": ["M", "L"], "Color": ["Red"]} - any value per type, all types
+    private String sortBy; // "name", "price", "createdAt", "relevance" (needs searchQuery)
     private String sortOrder; // "ASC", "DESC"
     private Integer page;
     private Integer pageSize;
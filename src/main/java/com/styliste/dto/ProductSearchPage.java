@@ -0,0 +1,25 @@
+package com.styliste.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+
+// A normal search page plus facet counts and "did you mean" data. Extends PageImpl so
+// clients that only read the usual page fields keep working.
+@Getter
+public class ProductSearchPage extends PageImpl<ProductDTO> {
+
+    private final List<String> suggestions;
+    private final String correctedQuery; // set when results were served for suggestions[0] instead of the original query
+    private final SearchFacetsDTO facets;
+
+    public ProductSearchPage(Page<ProductDTO> page, List<String> suggestions, String correctedQuery,
+                             SearchFacetsDTO facets) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.suggestions = suggestions;
+        this.correctedQuery = correctedQuery;
+        this.facets = facets;
+    }
+}
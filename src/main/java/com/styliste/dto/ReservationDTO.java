@@ -0,0 +1,16 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationDTO {
+    private String id;
+    private String status;
+    private Map<Long, Integer> quantities; // productId -> units held
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.styliste.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollupDTO {
+    // Set for time series
+    private LocalDateTime bucketStart;
+    // Set for breakdowns: product id, category or order status
+    private String key;
+    // Product name, for product breakdowns
+    private String label;
+    private Long orders;
+    private Long units;
+    private BigDecimal revenue;
+}
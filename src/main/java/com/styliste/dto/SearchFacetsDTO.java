@@ -0,0 +1,15 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchFacetsDTO {
+    private Map<String, Long> categories;
+    private Map<String, Long> subcategories;
+    private Map<String, Long> priceRanges; // "0-500", "500-1000", ..., "5000+"
+    private Map<String, Map<String, Long>> attributes; // attribute type -> value -> count, e.g. Size -> {M: 12}
+}
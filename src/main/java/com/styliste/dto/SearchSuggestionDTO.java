@@ -0,0 +1,13 @@
+package com.styliste.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchSuggestionDTO {
+    private String text;
+    private String type; // PRODUCT, CATEGORY, SUBCATEGORY
+    private Long productId; // only for PRODUCT suggestions
+}
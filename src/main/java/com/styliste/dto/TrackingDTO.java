@@ -0,0 +1,17 @@
+package com.styliste.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackingDTO {
+    private Long orderId;
+    private String trackingNumber;
+    private String status;
+    private long itemCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
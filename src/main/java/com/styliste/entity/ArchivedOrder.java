@@ -0,0 +1,63 @@
+package com.styliste.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Cold copy of a finished order, moved out of orders by OrderArchiver. Keeps the original id,
+// so order ids stay unique across both tables, and is read-only from then on.
+@Entity
+@Table(name = "archived_orders", indexes = {
+        @Index(name = "idx_archived_orders_user_created_at_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_archived_orders_status", columnList = "status"),
+        @Index(name = "idx_archived_orders_tracking_number", columnList = "tracking_number")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private PaymentStatus paymentStatus;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal discount;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal tax;
+
+    @Column(length = 50)
+    private String trackingNumber;
+
+    @Column(columnDefinition = "TEXT")
+    private String shippingAddress;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @OneToMany(mappedBy = "order", fetch = FetchType.LAZY)
+    private List<ArchivedOrderItem> items;
+}
@@ -0,0 +1,50 @@
+package com.styliste.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+
+// Item of an ArchivedOrder. The product is kept as a plain id next to the name/image snapshot,
+// so products can change or go away without touching the archive.
+@Entity
+@Table(name = "archived_order_items")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private ArchivedOrder order;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name", length = 200)
+    private String productName;
+
+    @Column(name = "product_image", columnDefinition = "TEXT")
+    private String productImage;
+
+    @Column(name = "product_category", length = 50)
+    private String productCategory;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "unit_price", precision = 10, scale = 2, nullable = false)
+    private BigDecimal unitPrice;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal totalPrice;
+
+    @Column(length = 50)
+    private String selectedSize;
+
+    @Column(length = 50)
+    private String selectedColor;
+}
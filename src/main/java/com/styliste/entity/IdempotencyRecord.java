@@ -0,0 +1,54 @@
+package com.styliste.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Outcome of a request sent with an Idempotency-Key header, so retries get the original result
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord implements Persistable<String> {
+
+    // "<userId>:<key>" - keys are only unique per client
+    @Id
+    @Column(length = 150)
+    private String id;
+
+    // SHA-256 of the request body, to catch a key reused for a different request
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Always inserted, never merged: with an assigned id, save() would otherwise SELECT first and
+    // quietly overwrite a key another request committed in between instead of failing on the PK
+    @Builder.Default
+    private transient boolean newRecord = true;
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    public void postLoad() {
+        this.newRecord = false;
+    }
+}
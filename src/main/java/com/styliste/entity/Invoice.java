@@ -4,8 +4,11 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 
+// The PDF itself lives on disk (InvoiceService); the row only points at it
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+        @Index(name = "idx_invoices_render_requested_at", columnList = "render_requested_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,9 +22,10 @@ public class Invoice {
     @Column(unique = true, nullable = false, length = 50)
     private String invoiceNumber;
 
-    @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id", nullable = false, unique = true)
-    private Order order;
+    // A plain id rather than a foreign key: invoices are kept when their order moves to
+    // archived_orders
+    @Column(name = "order_id", nullable = false, unique = true)
+    private Long orderId;
 
     @Column(name = "issued_at", nullable = false)
     private LocalDateTime issuedAt;
@@ -33,8 +37,23 @@ public class Invoice {
     @Column(nullable = false)
     private InvoiceStatus status;
 
-    @Column(columnDefinition = "LONGBLOB")
-    private byte[] pdfContent;
+    // Relative to invoices.storage-dir; null until the first render finishes
+    @Column(name = "file_path", length = 255)
+    private String filePath;
+
+    // SHA-256 of the file, also served as its ETag
+    @Column(length = 64)
+    private String checksum;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    // The PDF is (re)rendered whenever render_requested_at is newer than rendered_at
+    @Column(name = "render_requested_at", nullable = false)
+    private LocalDateTime renderRequestedAt;
+
+    @Column(name = "rendered_at")
+    private LocalDateTime renderedAt;
 
     @PrePersist
     public void prePersist() {
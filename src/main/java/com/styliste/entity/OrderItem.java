@@ -16,14 +16,26 @@ public class OrderItem {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    // Snapshot of the product when the order was placed, so order history shows what was
+    // bought and doesn't have to read the catalog, and sales reports keep the category it was
+    // sold under after the product moves
+    @Column(name = "product_name", length = 200)
+    private String productName;
+
+    @Column(name = "product_image", columnDefinition = "TEXT")
+    private String productImage;
+
+    @Column(name = "product_category", length = 50)
+    private String productCategory;
+
     @Column(nullable = false)
     private Integer quantity;
 
@@ -1,5 +1,18 @@
 package com.styliste.entity;
 
 public enum OrderStatus {
-    PENDING, PROCESSING, SHIPPED, DELIVERED, CANCELLED, RETURNED
+    PENDING, PROCESSING, SHIPPED, DELIVERED, CANCELLED, RETURNED;
+
+    // Moves a bulk (carrier manifest) update may make; staying in the same status is allowed
+    // so a manifest can just set tracking numbers
+    public boolean canMoveTo(OrderStatus next) {
+        if (next == this) return true;
+        return switch (this) {
+            case PENDING -> next == PROCESSING || next == SHIPPED || next == CANCELLED;
+            case PROCESSING -> next == SHIPPED || next == CANCELLED;
+            case SHIPPED -> next == DELIVERED || next == RETURNED;
+            case DELIVERED -> next == RETURNED;
+            case CANCELLED, RETURNED -> false;
+        };
+    }
 }
@@ -2,12 +2,18 @@ package com.styliste.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@DynamicUpdate // only write changed columns, so an edit doesn't overwrite a concurrent stock decrement
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_subcategory", columnList = "category, subcategory"),
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,18 +45,23 @@ public class Product {
     @Column(name = "subcategory", length = 50)
     private String subcategory;
 
+    // Batched so loading the products of an order page costs one query per collection
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url", columnDefinition = "TEXT")
     private List<String> images;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_videos", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "video_url", columnDefinition = "TEXT")
     private List<String> videos;
 
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "product_attributes", joinColumns = @JoinColumn(name = "product_id"))
+    @BatchSize(size = 100)
+    @CollectionTable(name = "product_attributes", joinColumns = @JoinColumn(name = "product_id"),
+            indexes = @Index(name = "idx_product_attr_type_value", columnList = "attr_type, attr_value, product_id"))
     private List<ProductAttribute> attributes;
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -62,6 +73,11 @@ public class Product {
     @Column(nullable = false)
     private Boolean isActive = true;
 
+    // Stock for this product is served from HotInventoryService's in-memory counters (flash sales)
+    @Column(name = "hot_inventory", nullable = false)
+    @Builder.Default
+    private Boolean hotInventory = false;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems;
 
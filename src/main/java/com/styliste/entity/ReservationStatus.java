@@ -0,0 +1,5 @@
+package com.styliste.entity;
+
+public enum ReservationStatus {
+    ACTIVE, CONSUMED, RELEASED, EXPIRED
+}
@@ -0,0 +1,29 @@
+package com.styliste.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+
+// Pre-aggregated sales, maintained by SalesRollupService. Revenue and units for HOURLY, DAILY,
+// PRODUCT_DAILY and CATEGORY_DAILY only count orders that aren't cancelled or returned;
+// STATUS_DAILY counts every order under its current status.
+@Entity
+@Table(name = "sales_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollup {
+
+    @EmbeddedId
+    private SalesRollupId id;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,31 @@
+package com.styliste.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupId implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private SalesRollupType type;
+
+    // Start of the hour (HOURLY) or day (everything else) the orders were placed in
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Product id, category or order status; empty for HOURLY and DAILY
+    @Column(name = "dimension_key", length = 50, nullable = false)
+    private String dimensionKey;
+}
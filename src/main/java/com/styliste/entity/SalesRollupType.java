@@ -0,0 +1,5 @@
+package com.styliste.entity;
+
+public enum SalesRollupType {
+    HOURLY, DAILY, PRODUCT_DAILY, CATEGORY_DAILY, STATUS_DAILY
+}
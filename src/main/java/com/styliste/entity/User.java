@@ -8,6 +8,8 @@ import java.util.List;
 @Entity
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(columnNames = "email")
+}, indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
 })
 @Data
 @NoArgsConstructor
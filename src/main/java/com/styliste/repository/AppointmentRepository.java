@@ -5,6 +5,8 @@ import com.styliste.entity.AppointmentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
@@ -19,4 +21,16 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByStatus(AppointmentStatus status);
 
     long countByStatus(AppointmentStatus status);
+
+    // Rows of (status, count) for StatisticsService
+    @Query("SELECT a.status, COUNT(a) FROM Appointment a GROUP BY a.status")
+    List<Object[]> countGroupedByStatus();
+
+    // Keyset pagination on (appointmentDate, id), served by idx_appointments_date_id
+    @Query("SELECT a FROM Appointment a ORDER BY a.appointmentDate ASC, a.id ASC")
+    List<Appointment> findFirstByAppointmentDate(Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a WHERE a.appointmentDate > :date OR (a.appointmentDate = :date AND a.id > :id) " +
+            "ORDER BY a.appointmentDate ASC, a.id ASC")
+    List<Appointment> findAfterAppointmentDate(@Param("date") LocalDate date, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,33 @@
+package com.styliste.repository;
+
+import com.styliste.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query("SELECT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<ArchivedOrder> findWithItemsById(@Param("id") Long id);
+
+    @Query("SELECT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<ArchivedOrder> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT o.userId FROM ArchivedOrder o WHERE o.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @Query("SELECT o.id AS orderId, o.trackingNumber AS trackingNumber, o.status AS status, " +
+            "o.createdAt AS createdAt, o.updatedAt AS updatedAt, " +
+            "(SELECT COUNT(oi) FROM ArchivedOrderItem oi WHERE oi.order = o) AS itemCount " +
+            "FROM ArchivedOrder o WHERE o.trackingNumber = :trackingNumber")
+    List<OrderTracking> findTrackingByTrackingNumber(@Param("trackingNumber") String trackingNumber);
+
+    // Rows of (status, count), added to the live counts by StatisticsService
+    @Query("SELECT o.status, COUNT(o) FROM ArchivedOrder o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
+}
@@ -0,0 +1,22 @@
+package com.styliste.repository;
+
+import com.styliste.entity.Invoice;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+
+    Optional<Invoice> findByOrderId(Long orderId);
+
+    // Renders requested before the cutoff that haven't happened (queue full, crash, failure)
+    @Query("SELECT i.id FROM Invoice i WHERE i.renderRequestedAt < :before " +
+            "AND (i.renderedAt IS NULL OR i.renderedAt < i.renderRequestedAt) ORDER BY i.renderRequestedAt")
+    List<Long> findIdsNeedingRender(@Param("before") LocalDateTime before, Pageable pageable);
+}
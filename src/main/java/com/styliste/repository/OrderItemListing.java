@@ -0,0 +1,17 @@
+package com.styliste.repository;
+
+import java.math.BigDecimal;
+
+// Just what OrderItemDTO shows
+public interface OrderItemListing {
+    Long getOrderId();
+    Long getId();
+    Long getProductId();
+    String getProductName();
+    String getProductImage();
+    Integer getQuantity();
+    BigDecimal getUnitPrice();
+    BigDecimal getTotalPrice();
+    String getSelectedSize();
+    String getSelectedColor();
+}
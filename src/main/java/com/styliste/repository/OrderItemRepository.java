@@ -1,11 +1,33 @@
 package com.styliste.repository;
 
 import com.styliste.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
+
+    // [productId, units sold] - used to weight search completions by popularity
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi GROUP BY oi.product.id")
+    List<Object[]> sumQuantityByProduct();
+
+    // Reads the name/image snapshots; the product name is only looked up for rows the
+    // snapshot backfill hasn't reached yet
+    @Query("SELECT oi.order.id AS orderId, oi.id AS id, oi.product.id AS productId, " +
+            "COALESCE(oi.productName, (SELECT p.name FROM Product p WHERE p.id = oi.product.id)) AS productName, " +
+            "oi.productImage AS productImage, oi.quantity AS quantity, oi.unitPrice AS unitPrice, " +
+            "oi.totalPrice AS totalPrice, oi.selectedSize AS selectedSize, oi.selectedColor AS selectedColor " +
+            "FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemListing> findListingsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // [id, product id] of items without a full product snapshot, in id order after afterId
+    @Query("SELECT oi.id, oi.product.id FROM OrderItem oi " +
+            "WHERE (oi.productName IS NULL OR oi.productCategory IS NULL) AND oi.id > :afterId ORDER BY oi.id")
+    List<Object[]> findMissingSnapshots(@Param("afterId") Long afterId, Pageable pageable);
 }
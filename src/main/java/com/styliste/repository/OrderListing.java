@@ -0,0 +1,23 @@
+package com.styliste.repository;
+
+import com.styliste.entity.OrderStatus;
+import com.styliste.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Scalar columns of an order. Selected instead of the entity where many orders are listed,
+// so the EAGER user and item graphs aren't loaded per row.
+public interface OrderListing {
+    Long getId();
+    Long getUserId();
+    OrderStatus getStatus();
+    PaymentStatus getPaymentStatus();
+    BigDecimal getTotalAmount();
+    BigDecimal getDiscount();
+    BigDecimal getTax();
+    String getTrackingNumber();
+    String getShippingAddress();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -2,23 +2,99 @@ package com.styliste.repository;
 
 import com.styliste.entity.Order;
 import com.styliste.entity.OrderStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    Page<Order> findByUserId(Long userId, Pageable pageable);
+    // Select list for OrderListing projections
+    String LISTING_COLUMNS = "o.id AS id, o.user.id AS userId, o.status AS status, o.paymentStatus AS paymentStatus, " +
+            "o.totalAmount AS totalAmount, o.discount AS discount, o.tax AS tax, o.trackingNumber AS trackingNumber, " +
+            "o.shippingAddress AS shippingAddress, o.createdAt AS createdAt, o.updatedAt AS updatedAt";
 
-    List<Order> findByStatus(OrderStatus status);
+    // A user's order history across orders and archived_orders, newest first, as rows of
+    // (id, archived flag); the orders themselves are then loaded from their table
+    @Query(value = "SELECT h.id, h.archived FROM (" +
+            "SELECT o.id, o.created_at, 0 AS archived FROM orders o WHERE o.user_id = :userId " +
+            "UNION ALL SELECT a.id, a.created_at, 1 FROM archived_orders a WHERE a.user_id = :userId) h " +
+            "ORDER BY h.created_at DESC, h.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> findHistoryPage(@Param("userId") Long userId, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(value = "SELECT (SELECT COUNT(*) FROM orders WHERE user_id = :userId) + " +
+            "(SELECT COUNT(*) FROM archived_orders WHERE user_id = :userId)", nativeQuery = true)
+    long countHistory(@Param("userId") Long userId);
+
+    @Query("SELECT o.user.id FROM Order o WHERE o.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
 
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
 
-    Optional<Order> findByTrackingNumber(String trackingNumber);
+    // Fetch plans for mapping orders to OrderDTO: the items come in the same query, and their
+    // name/image snapshots mean products aren't needed. Listings page over orders first and
+    // then load the page's items with findWithItemsByIdIn, since a collection fetch can't be
+    // paginated in SQL.
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<Order> findWithItemsById(@Param("id") Long id);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Public tracking lookups, served by uk_orders_tracking_number
+    @Query("SELECT o.id AS orderId, o.trackingNumber AS trackingNumber, o.status AS status, " +
+            "o.createdAt AS createdAt, o.updatedAt AS updatedAt, " +
+            "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o) AS itemCount " +
+            "FROM Order o WHERE o.trackingNumber = :trackingNumber")
+    Optional<OrderTracking> findTrackingByTrackingNumber(@Param("trackingNumber") String trackingNumber);
+
+    boolean existsByTrackingNumberAndIdNot(String trackingNumber, Long id);
+
+    // Finished orders of one status untouched since the cutoff, oldest first after the
+    // (createdAt, id) keyset, as rows of (id, createdAt); served by idx_orders_status_created_at_id
+    @Query("SELECT o.id, o.createdAt FROM Order o WHERE o.status = :status AND o.createdAt < :before " +
+            "AND (o.updatedAt IS NULL OR o.updatedAt < :before) " +
+            "AND (o.createdAt > :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id > :afterId)) " +
+            "ORDER BY o.createdAt, o.id")
+    List<Object[]> findArchivable(@Param("status") OrderStatus status,
+                                  @Param("before") LocalDateTime before,
+                                  @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    // Status changes also need the products' categories (sales rollups)
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id = :id")
+    Optional<Order> findWithItemsAndProductsById(@Param("id") Long id);
 
     long countByStatus(OrderStatus status);
+
+    // Rows of (status, count) for StatisticsService
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
+
+    // Keyset pagination on (createdAt, id), served by idx_orders_created_at_id
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstByCreatedAt(Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // Keyset pagination within one status, served by idx_orders_status_created_at_id
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Order o WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderListing> findFirstListingsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Order o WHERE o.status = :status " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderListing> findListingsByStatusAfter(@Param("status") OrderStatus status,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
 }
@@ -0,0 +1,15 @@
+package com.styliste.repository;
+
+import com.styliste.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+
+// What the public tracking endpoint shows: no customer, address or pricing details
+public interface OrderTracking {
+    Long getOrderId();
+    String getTrackingNumber();
+    OrderStatus getStatus();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    Long getItemCount();
+}
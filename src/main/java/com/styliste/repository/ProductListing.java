@@ -0,0 +1,20 @@
+package com.styliste.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Scalar columns of a product, without its element collections. Listing queries select
+// this instead of the entity so the EAGER images/videos/attributes aren't loaded per row.
+public interface ProductListing {
+    Long getId();
+    String getName();
+    String getDescription();
+    BigDecimal getPrice();
+    BigDecimal getSalePrice();
+    Integer getStock();
+    String getCategory();
+    String getSubcategory();
+    Boolean getIsActive();
+    Boolean getHotInventory();
+    LocalDateTime getCreatedAt();
+}
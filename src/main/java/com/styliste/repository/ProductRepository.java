@@ -1,18 +1,45 @@
 package com.styliste.repository;
 
 import com.styliste.entity.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    // Select list for ProductListing projections; aliases match the getters (and sortable properties)
+    String LISTING_COLUMNS = "p.id AS id, p.name AS name, p.description AS description, p.price AS price, " +
+            "p.salePrice AS salePrice, p.stock AS stock, p.category AS category, p.subcategory AS subcategory, " +
+            "p.isActive AS isActive, p.hotInventory AS hotInventory, p.createdAt AS createdAt";
+
+    // Filters for searchProducts (select and count queries). Attribute filters are "any listed
+    // value within a type, every listed type": the EXISTS finds the product's attributes whose
+    // type=value pair was asked for and needs one distinct type per requested type. Callers
+    // without attribute filters pass attributeTypeCount = 0 and empty lists.
+    String SEARCH_FILTERS =
+            "(:category IS NULL OR p.category = :category) AND " +
+            "(:subcategory IS NULL OR p.subcategory = :subcategory) AND " +
+            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
+            "(:searchQuery IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchQuery, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchQuery, '%'))) AND " +
+            "(:attributeTypeCount = 0 OR EXISTS (SELECT 1 FROM Product ap JOIN ap.attributes a " +
+            "WHERE ap.id = p.id AND a.type IN :attributeTypes AND CONCAT(a.type, '=', a.value) IN :attributePairs " +
+            "GROUP BY ap.id HAVING COUNT(DISTINCT a.type) = :attributeTypeCount)) AND " +
+            "p.isActive = true";
+
     List<Product> findByCategory(String category);
 
     List<Product> findBySubcategory(String subcategory);
@@ -21,22 +48,68 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:category IS NULL OR p.category = :category) AND " +
-            "(:subcategory IS NULL OR p.subcategory = :subcategory) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-            "(:searchQuery IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchQuery, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchQuery, '%'))) AND " +
-            "p.isActive = true")
-    Page<Product> searchProducts(
+    @Query(value = "SELECT " + LISTING_COLUMNS + " FROM Product p WHERE " + SEARCH_FILTERS,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " + SEARCH_FILTERS)
+    Page<ProductListing> searchProducts(
             @Param("category") String category,
             @Param("subcategory") String subcategory,
             @Param("minPrice") BigDecimal minPrice,
             @Param("maxPrice") BigDecimal maxPrice,
             @Param("searchQuery") String searchQuery,
+            @Param("attributeTypes") Collection<String> attributeTypes,
+            @Param("attributePairs") Collection<String> attributePairs,
+            @Param("attributeTypeCount") long attributeTypeCount,
             Pageable pageable
     );
 
+    // Listing read path: scalars via ProductListing, then one IN (...) query per collection
+    @Query(value = "SELECT " + LISTING_COLUMNS + " FROM Product p",
+            countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductListing> findAllListings(Pageable pageable);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p WHERE p.category = :category")
+    List<ProductListing> findListingsByCategory(@Param("category") String category);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p WHERE p.subcategory = :subcategory")
+    List<ProductListing> findListingsBySubcategory(@Param("subcategory") String subcategory);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p WHERE p.id IN :ids")
+    List<ProductListing> findListingsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id, i FROM Product p JOIN p.images i WHERE p.id IN :ids")
+    List<Object[]> findImagesByProductIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id, v FROM Product p JOIN p.videos v WHERE p.id IN :ids")
+    List<Object[]> findVideosByProductIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id, a.type, a.value FROM Product p JOIN p.attributes a WHERE p.id IN :ids")
+    List<Object[]> findAttributesByProductIds(@Param("ids") Collection<Long> ids);
+
     List<Product> findByIsActiveTrueOrderByCreatedAtDesc();
+
+    // Check-and-decrement in one statement; returns 0 when there isn't enough stock, or when
+    // the product's stock is held by HotInventoryService
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :id AND p.stock >= :quantity AND p.hotInventory = false")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Write-behind from HotInventoryService (negative delta for units sold, positive for returns)
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :delta, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    List<Product> findByHotInventoryTrue();
+
+    // Keyset pagination on (createdAt, id), served by idx_products_created_at_id
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListing> findFirstByCreatedAt(Pageable pageable);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListing> findAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,29 @@
+package com.styliste.repository;
+
+import com.styliste.entity.SalesRollup;
+import com.styliste.entity.SalesRollupId;
+import com.styliste.entity.SalesRollupType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollupId> {
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.id.type = :type " +
+            "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to ORDER BY r.id.bucketStart")
+    List<SalesRollup> findBuckets(@Param("type") SalesRollupType type,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    // Rows of (dimension key, orders, units, revenue) summed over the range, highest revenue first
+    @Query("SELECT r.id.dimensionKey, SUM(r.orderCount), SUM(r.units), SUM(r.revenue) FROM SalesRollup r " +
+            "WHERE r.id.type = :type AND r.id.bucketStart >= :from AND r.id.bucketStart < :to " +
+            "GROUP BY r.id.dimensionKey ORDER BY SUM(r.revenue) DESC")
+    List<Object[]> sumByDimension(@Param("type") SalesRollupType type,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+}
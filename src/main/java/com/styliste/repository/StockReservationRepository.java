@@ -0,0 +1,30 @@
+package com.styliste.repository;
+
+import com.styliste.entity.ReservationStatus;
+import com.styliste.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id = :id")
+    Optional<StockReservation> findByIdForUpdate(@Param("id") String id);
+
+    // Row-locks the still-active ones so a concurrent checkout can't consume what we release
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id IN :ids AND r.status = :status")
+    List<StockReservation> findByIdInAndStatusForUpdate(@Param("ids") Collection<String> ids,
+                                                        @Param("status") ReservationStatus status);
+
+    List<StockReservation> findByStatus(ReservationStatus status);
+}
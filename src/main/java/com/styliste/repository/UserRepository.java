@@ -5,7 +5,11 @@ import com.styliste.entity.UserRole;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +17,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     Page<User> findByRole(UserRole role, Pageable pageable);
+
+    // Keyset pagination on (createdAt, id), optionally filtered by role
+    @Query("SELECT u FROM User u WHERE (:role IS NULL OR u.role = :role) ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findFirstByCreatedAt(@Param("role") UserRole role, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE (:role IS NULL OR u.role = :role) AND " +
+            "(u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findAfterCreatedAt(@Param("role") UserRole role, @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id, Pageable pageable);
 }
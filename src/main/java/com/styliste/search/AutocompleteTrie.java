@@ -0,0 +1,140 @@
+package com.styliste.search;
+
+import java.util.*;
+
+// Prefix trie for search-box completions. Every node caches the best completions in its
+// subtree, so a lookup is a walk down the prefix plus a list copy, independent of how many
+// entries share that prefix. Updates recompute the cached lists along the touched path only.
+// Not thread-safe on its own; ProductSearchIndex guards it.
+class AutocompleteTrie {
+
+    static final int NODE_CAPACITY = 10;
+
+    private static final Comparator<Completion> BEST_FIRST = Comparator
+            .comparingLong((Completion c) -> -c.getWeight())
+            .thenComparing(Completion::getText);
+
+    private Node root = new Node();
+
+    void put(String key, Completion completion) {
+        if (key.isEmpty()) return;
+
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.push(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path.push(node);
+        }
+
+        if (node.terminals == null) node.terminals = new ArrayList<>(1);
+        node.terminals.removeIf(existing -> existing.getId().equals(completion.getId()));
+        node.terminals.add(completion);
+
+        path.forEach(Node::recomputeTop);
+    }
+
+    void remove(String key, String completionId) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.push(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+            if (node != null) path.push(node);
+        }
+        if (node == null || node.terminals == null) return;
+        if (!node.terminals.removeIf(existing -> existing.getId().equals(completionId))) return;
+        if (node.terminals.isEmpty()) node.terminals = null;
+
+        // Walk back up, pruning nodes that no longer lead anywhere
+        Node child = null;
+        int depth = key.length();
+        for (Node current : path) {
+            if (child != null && child.isEmpty()) current.removeChild(key.charAt(depth));
+            current.recomputeTop();
+            child = current;
+            depth--;
+        }
+    }
+
+    void clear() {
+        root = new Node();
+    }
+
+    List<Completion> complete(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) return List.of();
+        return new ArrayList<>(node.top.subList(0, Math.min(limit, node.top.size())));
+    }
+
+    private static final class Node {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // Sorted parallel arrays instead of a map: most nodes have one or two children
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private List<Completion> terminals;
+        private List<Completion> top = List.of();
+
+        private Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i >= 0) return children[i];
+
+            int insertAt = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        private void removeChild(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i < 0) return;
+
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        private boolean isEmpty() {
+            return terminals == null && children.length == 0;
+        }
+
+        // The same completion can be reachable through several keys (one per word of a
+        // product name), so merge by id keeping the first (best) occurrence.
+        private void recomputeTop() {
+            List<Completion> candidates = new ArrayList<>();
+            if (terminals != null) candidates.addAll(terminals);
+            for (Node child : children) candidates.addAll(child.top);
+            candidates.sort(BEST_FIRST);
+
+            Map<String, Completion> best = new LinkedHashMap<>();
+            for (Completion completion : candidates) {
+                best.putIfAbsent(completion.getId(), completion);
+                if (best.size() == NODE_CAPACITY) break;
+            }
+            top = best.isEmpty() ? List.of() : List.copyOf(best.values());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.styliste.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+class Completion {
+    private final String id;     // "product:12", "category:dresses" - identity across trie keys
+    private final String text;   // what the search box shows
+    private final String type;   // PRODUCT, CATEGORY, SUBCATEGORY
+    private final Long productId;
+    private final long weight;
+}
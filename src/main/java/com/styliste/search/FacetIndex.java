@@ -0,0 +1,77 @@
+package com.styliste.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+// One compressed bitmap of product ids per facet value (category=Dresses, Size=M, ...).
+// Counting a facet for a result set is a bitmap AND cardinality, no per-product work.
+// Not thread-safe on its own; ProductSearchIndex guards it.
+class FacetIndex {
+
+    // facet -> lowercased value -> bitmap. Values are matched case-insensitively like MySQL does.
+    private final Map<String, Map<String, FacetValue>> facets = new HashMap<>();
+
+    void add(String facet, String value, int productId) {
+        if (value == null || value.isBlank()) return;
+        facets.computeIfAbsent(facet, f -> new HashMap<>())
+                .computeIfAbsent(key(value), k -> new FacetValue(value.trim()))
+                .bitmap.add(productId);
+    }
+
+    void remove(String facet, String value, int productId) {
+        if (value == null || value.isBlank()) return;
+        Map<String, FacetValue> values = facets.get(facet);
+        if (values == null) return;
+
+        FacetValue facetValue = values.get(key(value));
+        if (facetValue == null) return;
+        facetValue.bitmap.remove(productId);
+        if (facetValue.bitmap.isEmpty()) values.remove(key(value));
+        if (values.isEmpty()) facets.remove(facet);
+    }
+
+    void clear() {
+        facets.clear();
+    }
+
+    // Bitmap for a single value, or an empty one if nothing has it
+    RoaringBitmap get(String facet, String value) {
+        Map<String, FacetValue> values = facets.get(facet);
+        FacetValue facetValue = values == null || value == null ? null : values.get(key(value));
+        return facetValue == null ? new RoaringBitmap() : facetValue.bitmap;
+    }
+
+    Set<String> facetNames() {
+        return facets.keySet();
+    }
+
+    // value -> number of candidates having it, most common first, zero counts dropped
+    Map<String, Long> counts(String facet, RoaringBitmap candidates) {
+        Map<String, FacetValue> values = facets.getOrDefault(facet, Map.of());
+
+        List<Map.Entry<String, Long>> counted = new ArrayList<>();
+        for (FacetValue facetValue : values.values()) {
+            long count = RoaringBitmap.andCardinality(candidates, facetValue.bitmap);
+            if (count > 0) counted.add(Map.entry(facetValue.display, count));
+        }
+        counted.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        counted.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class FacetValue {
+        private final String display;
+        private final RoaringBitmap bitmap = new RoaringBitmap();
+
+        private FacetValue(String display) {
+            this.display = display;
+        }
+    }
+}
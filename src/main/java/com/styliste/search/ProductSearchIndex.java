@@ -0,0 +1,774 @@
+package com.styliste.search;
+
+import com.styliste.dto.ProductFilterRequest;
+import com.styliste.dto.SearchFacetsDTO;
+import com.styliste.dto.SearchSuggestionDTO;
+import com.styliste.entity.Product;
+import com.styliste.entity.ProductAttribute;
+import com.styliste.repository.OrderItemRepository;
+import com.styliste.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over active products (name, description, attribute values).
+// Kept in sync by ProductService so searches don't need a LIKE scan on the products table.
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    // BM25F parameters. Name hits count for more than attribute or description hits.
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double ATTRIBUTE_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    // A query token that only prefix-matches a term ("dres" -> "dresses") scores a bit lower
+    private static final double PREFIX_MATCH_WEIGHT = 0.7;
+
+    // Longest trie key per completion. Longer prefixes are looked up by their first this-many
+    // characters and the hits are then checked against the whole prefix.
+    private static final int MAX_COMPLETION_KEY_LENGTH = 40;
+
+    private static final String PRODUCT_SUGGESTION = "PRODUCT";
+    private static final String CATEGORY_SUGGESTION = "CATEGORY";
+    private static final String SUBCATEGORY_SUGGESTION = "SUBCATEGORY";
+
+    private static final String CATEGORY_FACET = "category";
+    private static final String SUBCATEGORY_FACET = "subcategory";
+    private static final String PRICE_FACET = "price";
+    private static final String ATTRIBUTE_FACET_PREFIX = "attr:";
+
+    private static final int NAME = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int ATTRIBUTES = 2;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    // Upper bounds of the price facet buckets, ascending
+    @Value("${search.facets.price-buckets:500,1000,2000,5000}")
+    private BigDecimal[] priceBucketBounds;
+
+    // term -> (product id -> per-field term frequencies). Sorted so prefix lookups are a range scan.
+    private final TreeMap<String, Map<Long, int[]>> postings = new TreeMap<>();
+
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+
+    // Vocabulary for "did you mean" suggestions
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+
+    // Search-box completions for product, category and subcategory names
+    private final AutocompleteTrie autocompleteTrie = new AutocompleteTrie();
+
+    // Units sold per product, the popularity signal for completions
+    private final Map<Long, Long> unitsSold = new HashMap<>();
+
+    // Category/subcategory completions are shared by many products, so they are ref-counted
+    private final Map<String, CompletionGroup> completionGroups = new HashMap<>();
+
+    // Facet bitmaps (category, subcategory, price bucket, attribute type/value) over product ids
+    private final FacetIndex facetIndex = new FacetIndex();
+    private final RoaringBitmap activeProducts = new RoaringBitmap();
+
+    // Lowercased attribute type -> how it is displayed in facet results
+    private final Map<String, String> attributeTypeNames = new HashMap<>();
+
+    // Running totals of field lengths, used for BM25 length normalisation
+    private final long[] totalFieldLengths = new long[3];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Changes that arrive while rebuild() reads its snapshot, replayed on top of it before the
+    // swap so they aren't lost (product id -> latest version, null once removed). Guarded by lock.
+    private boolean rebuilding = false;
+    private final Map<Long, Product> pendingUpdates = new LinkedHashMap<>();
+    private final Map<Long, Long> pendingPurchases = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.info("Building product search index");
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingUpdates.clear();
+            pendingPurchases.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Read outside the lock so searches and updates aren't held up by the queries
+        List<Product> products;
+        List<Object[]> sales;
+        try {
+            products = productRepository.findByIsActiveTrueOrderByCreatedAtDesc();
+            sales = orderItemRepository.sumQuantityByProduct();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            trigramIndex.clear();
+            autocompleteTrie.clear();
+            completionGroups.clear();
+            facetIndex.clear();
+            activeProducts.clear();
+            unitsSold.clear();
+            for (Object[] row : sales) {
+                unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            Arrays.fill(totalFieldLengths, 0);
+            products.forEach(this::addDocument);
+
+            // A purchase recorded right as the snapshot was read may be counted twice; it only
+            // nudges completion order
+            pendingPurchases.forEach((productId, quantity) -> unitsSold.merge(productId, quantity, Long::sum));
+            pendingUpdates.forEach((productId, product) -> {
+                removeDocument(productId);
+                if (product != null && Boolean.TRUE.equals(product.getIsActive())) addDocument(product);
+            });
+        } finally {
+            rebuilding = false;
+            pendingUpdates.clear();
+            pendingPurchases.clear();
+            lock.writeLock().unlock();
+        }
+
+        ready = true;
+        log.info("Product search index built with {} products and {} terms", products.size(), postings.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) return;
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                addDocument(product);
+            }
+            if (rebuilding) pendingUpdates.put(product.getId(), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            if (rebuilding) pendingUpdates.put(productId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns ids of products matching every query token. A token matches any indexed
+    // term it is a prefix of, so "dres" still finds "dresses" like the old LIKE query did.
+    public Set<Long> search(String query) {
+        List<String> tokens = SearchTokenizer.tokenize(query);
+        if (tokens.isEmpty()) return Collections.emptySet();
+
+        lock.readLock().lock();
+        try {
+            return matchAll(new LinkedHashSet<>(tokens));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Scores matching products with BM25F and returns the ids for one page in relevance order.
+    // Only the best (offset + limit) hits are kept, in a bounded min-heap, so a query that
+    // matches thousands of products never sorts all of them.
+    public RankedSearchResult rankedSearch(ProductFilterRequest filter, int offset, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(SearchTokenizer.tokenize(filter.getSearchQuery()));
+        if (tokens.isEmpty() || limit <= 0) return new RankedSearchResult(List.of(), 0);
+
+        int k = offset + limit;
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = candidates(filter);
+            if (candidates.isEmpty()) return new RankedSearchResult(List.of(), 0);
+
+            double[] averageLengths = averageFieldLengths();
+            Map<String, Double> idfCache = new HashMap<>();
+
+            PriorityQueue<ScoredId> heap = new PriorityQueue<>(k + 1, ScoredId.ASCENDING);
+            int total = 0;
+            for (int bit : candidates) {
+                Long id = (long) bit;
+                IndexedProduct doc = documents.get(id);
+                if (doc == null) continue;
+                total++;
+
+                double score = 0;
+                for (String token : tokens) {
+                    score += tokenScore(token, doc, averageLengths, idfCache);
+                }
+
+                ScoredId scored = new ScoredId(id, score);
+                if (heap.size() < k) {
+                    heap.add(scored);
+                } else if (ScoredId.ASCENDING.compare(scored, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(scored);
+                }
+            }
+
+            // Drain the heap (worst first) and keep only the requested page
+            List<Long> ranked = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) ranked.add(heap.poll().id);
+            Collections.reverse(ranked);
+            List<Long> pageIds = offset >= ranked.size()
+                    ? List.of()
+                    : ranked.subList(offset, ranked.size());
+
+            return new RankedSearchResult(new ArrayList<>(pageIds), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // One page of the products matching the query and filters, ordered by name, price or
+    // createdAt (anything else falls back to createdAt) with the id as tie-breaker. Same bounded
+    // heap as rankedSearch, and the total is the candidate count, so the database only ever
+    // sees the ids of the page being served.
+    public RankedSearchResult sortedSearch(ProductFilterRequest filter, String sortBy, boolean ascending,
+                                           int offset, int limit) {
+        if (limit <= 0) return new RankedSearchResult(List.of(), 0);
+
+        Comparator<IndexedProduct> order = IndexedProduct.order(sortBy);
+        if (!ascending) order = order.reversed();
+
+        int k = offset + limit;
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = candidates(filter);
+            // Reversed, so the head is the last of the k kept products and the one to evict
+            PriorityQueue<IndexedProduct> heap = new PriorityQueue<>(k + 1, order.reversed());
+            int total = 0;
+            for (int bit : candidates) {
+                IndexedProduct doc = documents.get((long) bit);
+                if (doc == null) continue;
+                total++;
+
+                if (heap.size() < k) {
+                    heap.add(doc);
+                } else if (order.compare(doc, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(doc);
+                }
+            }
+
+            List<Long> sorted = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) sorted.add(heap.poll().id);
+            Collections.reverse(sorted);
+            List<Long> pageIds = offset >= sorted.size()
+                    ? List.of()
+                    : sorted.subList(offset, sorted.size());
+
+            return new RankedSearchResult(new ArrayList<>(pageIds), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bumps a product's popularity so it (and its category) rank higher in completions
+    public void recordPurchase(Long productId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            unitsSold.merge(productId, (long) quantity, Long::sum);
+            if (rebuilding) pendingPurchases.merge(productId, (long) quantity, Long::sum);
+            IndexedProduct doc = documents.get(productId);
+            if (doc == null) return;
+
+            putProductCompletion(doc);
+            updateCompletionGroup(CATEGORY_SUGGESTION, doc.category, 0, quantity);
+            updateCompletionGroup(SUBCATEGORY_SUGGESTION, doc.subcategory, 0, quantity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Most popular product/category/subcategory names containing a word that starts with the prefix
+    public List<SearchSuggestionDTO> autocomplete(String prefix, int limit) {
+        String key = String.join(" ", SearchTokenizer.tokenize(prefix));
+        if (key.isEmpty() || limit <= 0) return List.of();
+        // A trailing space means the last word is complete, so only match it exactly
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) key += " ";
+
+        boolean truncated = key.length() > MAX_COMPLETION_KEY_LENGTH;
+        List<Completion> completions;
+        lock.readLock().lock();
+        try {
+            // A cut key can match names that differ after the cut, so fetch all the node has and filter
+            completions = truncated
+                    ? autocompleteTrie.complete(key.substring(0, MAX_COMPLETION_KEY_LENGTH), AutocompleteTrie.NODE_CAPACITY)
+                    : autocompleteTrie.complete(key, Math.min(limit, AutocompleteTrie.NODE_CAPACITY));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SearchSuggestionDTO> suggestions = new ArrayList<>(completions.size());
+        for (Completion completion : completions) {
+            if (suggestions.size() == limit) break;
+            if (truncated && !startsWithPrefix(completion.getText(), key)) continue;
+            suggestions.add(SearchSuggestionDTO.builder()
+                    .text(completion.getText())
+                    .type(completion.getType())
+                    .productId(completion.getProductId())
+                    .build());
+        }
+        return suggestions;
+    }
+
+    // Facet counts over everything the filter matches (not just the current page). The
+    // result set is built as a bitmap and each count is one AND cardinality against it.
+    public SearchFacetsDTO facetCounts(ProductFilterRequest filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = candidates(filter);
+
+            Map<String, Long> priceRanges = new LinkedHashMap<>();
+            Map<String, Long> priceCounts = facetIndex.counts(PRICE_FACET, candidates);
+            for (String bucket : priceBucketLabels()) {
+                Long count = priceCounts.get(bucket);
+                if (count != null) priceRanges.put(bucket, count);
+            }
+
+            Map<String, Map<String, Long>> attributes = new TreeMap<>();
+            for (String facet : facetIndex.facetNames()) {
+                if (!facet.startsWith(ATTRIBUTE_FACET_PREFIX)) continue;
+                Map<String, Long> counts = facetIndex.counts(facet, candidates);
+                if (counts.isEmpty()) continue;
+                String type = facet.substring(ATTRIBUTE_FACET_PREFIX.length());
+                attributes.put(attributeTypeNames.getOrDefault(type, type), counts);
+            }
+
+            return SearchFacetsDTO.builder()
+                    .categories(facetIndex.counts(CATEGORY_FACET, candidates))
+                    .subcategories(facetIndex.counts(SUBCATEGORY_FACET, candidates))
+                    .priceRanges(priceRanges)
+                    .attributes(attributes)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap candidates(ProductFilterRequest filter) {
+        RoaringBitmap candidates;
+        String query = filter.getSearchQuery();
+        if (query != null && !query.isBlank()) {
+            candidates = new RoaringBitmap();
+            Set<String> tokens = new LinkedHashSet<>(SearchTokenizer.tokenize(query));
+            if (!tokens.isEmpty()) {
+                for (Long id : matchAll(tokens)) candidates.add(toBit(id));
+            }
+        } else {
+            candidates = activeProducts.clone();
+        }
+
+        if (filter.getCategory() != null) {
+            candidates.and(facetIndex.get(CATEGORY_FACET, filter.getCategory()));
+        }
+        if (filter.getSubcategory() != null) {
+            candidates.and(facetIndex.get(SUBCATEGORY_FACET, filter.getSubcategory()));
+        }
+        // Any of the listed values within a type, every listed type
+        if (filter.getAttributes() != null) {
+            for (Map.Entry<String, List<String>> entry : filter.getAttributes().entrySet()) {
+                if (entry.getKey() == null || entry.getKey().isBlank() || entry.getValue() == null) continue;
+                String facet = ATTRIBUTE_FACET_PREFIX + entry.getKey().trim().toLowerCase(Locale.ROOT);
+                RoaringBitmap anyValue = new RoaringBitmap();
+                boolean filtered = false;
+                for (String value : entry.getValue()) {
+                    if (value == null || value.isBlank()) continue;
+                    anyValue.or(facetIndex.get(facet, value));
+                    filtered = true;
+                }
+                if (filtered) candidates.and(anyValue);
+            }
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            RoaringBitmap inRange = new RoaringBitmap();
+            candidates.forEach((int bit) -> {
+                IndexedProduct doc = documents.get((long) bit);
+                if (doc != null && doc.matchesPrice(filter)) inRange.add(bit);
+            });
+            candidates = inRange;
+        }
+        return candidates;
+    }
+
+    // Spelling corrections for a query whose tokens don't match anything. Each unknown token
+    // is swapped for a known name/category word within a small edit distance; the first
+    // entry is the best guess and the rest vary the first corrected token.
+    public List<String> suggestQueries(String query, int limit) {
+        List<String> tokens = SearchTokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<List<String>> options = new ArrayList<>();
+            int firstCorrected = -1;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                if (!prefixRange(token).isEmpty() || trigramIndex.contains(token)) {
+                    options.add(List.of(token));
+                    continue;
+                }
+
+                List<String> similar = trigramIndex.similarWords(token, limit);
+                if (similar.isEmpty()) return List.of();
+                options.add(similar);
+                if (firstCorrected < 0) firstCorrected = i;
+            }
+            if (firstCorrected < 0) return List.of();
+
+            List<String> best = new ArrayList<>();
+            options.forEach(words -> best.add(words.get(0)));
+
+            Set<String> suggestions = new LinkedHashSet<>();
+            for (String alternative : options.get(firstCorrected)) {
+                best.set(firstCorrected, alternative);
+                suggestions.add(String.join(" ", best));
+                if (suggestions.size() == limit) break;
+            }
+            return new ArrayList<>(suggestions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> matchAll(Set<String> tokens) {
+        List<Set<Long>> matchesPerToken = new ArrayList<>();
+        for (String token : tokens) {
+            Set<Long> matches = prefixMatches(token);
+            if (matches.isEmpty()) return Collections.emptySet();
+            matchesPerToken.add(matches);
+        }
+
+        // Intersect starting from the rarest token to keep the working set small
+        matchesPerToken.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(matchesPerToken.get(0));
+        for (int i = 1; i < matchesPerToken.size() && !result.isEmpty(); i++) {
+            result.retainAll(matchesPerToken.get(i));
+        }
+        return result;
+    }
+
+    private Set<Long> prefixMatches(String token) {
+        SortedMap<String, Map<Long, int[]>> range = prefixRange(token);
+        if (range.size() == 1) return range.values().iterator().next().keySet();
+
+        Set<Long> matches = new HashSet<>();
+        range.values().forEach(docs -> matches.addAll(docs.keySet()));
+        return matches;
+    }
+
+    private SortedMap<String, Map<Long, int[]>> prefixRange(String token) {
+        return postings.subMap(token, token + Character.MAX_VALUE);
+    }
+
+    // Best score among the terms this token expands to
+    private double tokenScore(String token, IndexedProduct doc, double[] averageLengths, Map<String, Double> idfCache) {
+        double best = 0;
+        for (Map.Entry<String, Map<Long, int[]>> entry : prefixRange(token).entrySet()) {
+            int[] frequencies = entry.getValue().get(doc.id);
+            if (frequencies == null) continue;
+
+            double idf = idfCache.computeIfAbsent(entry.getKey(), term -> idf(entry.getValue().size()));
+            double weightedTf = NAME_WEIGHT * normalise(frequencies[NAME], doc.fieldLengths[NAME], averageLengths[NAME])
+                    + DESCRIPTION_WEIGHT * normalise(frequencies[DESCRIPTION], doc.fieldLengths[DESCRIPTION], averageLengths[DESCRIPTION])
+                    + ATTRIBUTE_WEIGHT * normalise(frequencies[ATTRIBUTES], doc.fieldLengths[ATTRIBUTES], averageLengths[ATTRIBUTES]);
+
+            double score = idf * weightedTf / (K1 + weightedTf);
+            if (!entry.getKey().equals(token)) score *= PREFIX_MATCH_WEIGHT;
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    private double idf(int documentFrequency) {
+        int n = documents.size();
+        return Math.log(1 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static double normalise(int frequency, int length, double averageLength) {
+        if (frequency == 0) return 0;
+        double lengthRatio = averageLength > 0 ? length / averageLength : 1;
+        return frequency / (1 - B + B * lengthRatio);
+    }
+
+    private double[] averageFieldLengths() {
+        double[] averages = new double[3];
+        int n = Math.max(1, documents.size());
+        for (int field = 0; field < averages.length; field++) {
+            averages[field] = (double) totalFieldLengths[field] / n;
+        }
+        return averages;
+    }
+
+    private void addDocument(Product product) {
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] fieldLengths = new int[3];
+
+        fieldLengths[NAME] = countTerms(SearchTokenizer.tokenize(product.getName()), NAME, frequencies);
+        fieldLengths[DESCRIPTION] = countTerms(SearchTokenizer.tokenize(product.getDescription()), DESCRIPTION, frequencies);
+        if (product.getAttributes() != null) {
+            for (ProductAttribute attribute : product.getAttributes()) {
+                fieldLengths[ATTRIBUTES] += countTerms(SearchTokenizer.tokenize(attribute.getValue()), ATTRIBUTES, frequencies);
+            }
+        }
+
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(product.getId(), entry.getValue());
+        }
+        for (int field = 0; field < fieldLengths.length; field++) {
+            totalFieldLengths[field] += fieldLengths[field];
+        }
+
+        Set<String> vocabulary = new HashSet<>(SearchTokenizer.tokenize(product.getName()));
+        vocabulary.addAll(SearchTokenizer.tokenize(product.getCategory()));
+        vocabulary.addAll(SearchTokenizer.tokenize(product.getSubcategory()));
+        vocabulary.forEach(trigramIndex::add);
+
+        IndexedProduct doc = new IndexedProduct(product, frequencies.keySet(), vocabulary, fieldLengths,
+                priceBucket(product.getPrice()));
+        documents.put(product.getId(), doc);
+
+        putProductCompletion(doc);
+        long sold = unitsSold.getOrDefault(doc.id, 0L);
+        updateCompletionGroup(CATEGORY_SUGGESTION, doc.category, 1, sold);
+        updateCompletionGroup(SUBCATEGORY_SUGGESTION, doc.subcategory, 1, sold);
+
+        int bit = toBit(doc.id);
+        activeProducts.add(bit);
+        facetIndex.add(CATEGORY_FACET, doc.category, bit);
+        facetIndex.add(SUBCATEGORY_FACET, doc.subcategory, bit);
+        facetIndex.add(PRICE_FACET, doc.priceBucket, bit);
+        for (ProductAttribute attribute : doc.attributes) {
+            if (attribute.getType() == null || attribute.getType().isBlank()) continue;
+            String type = attribute.getType().trim().toLowerCase(Locale.ROOT);
+            attributeTypeNames.putIfAbsent(type, attribute.getType().trim());
+            facetIndex.add(ATTRIBUTE_FACET_PREFIX + type, attribute.getValue(), bit);
+        }
+    }
+
+    private static int countTerms(List<String> tokens, int field, Map<String, int[]> frequencies) {
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, t -> new int[3])[field]++;
+        }
+        return tokens.size();
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedProduct doc = documents.remove(productId);
+        if (doc == null) return;
+
+        for (String term : doc.terms) {
+            Map<Long, int[]> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(productId);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+        for (int field = 0; field < doc.fieldLengths.length; field++) {
+            totalFieldLengths[field] -= doc.fieldLengths[field];
+        }
+        doc.vocabulary.forEach(trigramIndex::remove);
+
+        for (String key : completionKeys(doc.name)) {
+            autocompleteTrie.remove(key, PRODUCT_SUGGESTION + ":" + doc.id);
+        }
+        long sold = unitsSold.getOrDefault(doc.id, 0L);
+        updateCompletionGroup(CATEGORY_SUGGESTION, doc.category, -1, -sold);
+        updateCompletionGroup(SUBCATEGORY_SUGGESTION, doc.subcategory, -1, -sold);
+
+        int bit = toBit(doc.id);
+        activeProducts.remove(bit);
+        facetIndex.remove(CATEGORY_FACET, doc.category, bit);
+        facetIndex.remove(SUBCATEGORY_FACET, doc.subcategory, bit);
+        facetIndex.remove(PRICE_FACET, doc.priceBucket, bit);
+        for (ProductAttribute attribute : doc.attributes) {
+            if (attribute.getType() == null || attribute.getType().isBlank()) continue;
+            String type = attribute.getType().trim().toLowerCase(Locale.ROOT);
+            facetIndex.remove(ATTRIBUTE_FACET_PREFIX + type, attribute.getValue(), bit);
+        }
+    }
+
+    // Product ids are auto-increment and stay far below 2^31, so they are used as bitmap positions directly
+    private static int toBit(Long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    private String priceBucket(BigDecimal price) {
+        if (price == null) return null;
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : priceBucketBounds) {
+            if (price.compareTo(upper) < 0) return lower.toPlainString() + "-" + upper.toPlainString();
+            lower = upper;
+        }
+        return lower.toPlainString() + "+";
+    }
+
+    private List<String> priceBucketLabels() {
+        List<String> labels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : priceBucketBounds) {
+            labels.add(lower.toPlainString() + "-" + upper.toPlainString());
+            lower = upper;
+        }
+        labels.add(lower.toPlainString() + "+");
+        return labels;
+    }
+
+    private void putProductCompletion(IndexedProduct doc) {
+        Completion completion = new Completion(PRODUCT_SUGGESTION + ":" + doc.id, doc.name,
+                PRODUCT_SUGGESTION, doc.id, unitsSold.getOrDefault(doc.id, 0L));
+        for (String key : completionKeys(doc.name)) {
+            autocompleteTrie.put(key, completion);
+        }
+    }
+
+    private void updateCompletionGroup(String type, String name, int productDelta, long unitsDelta) {
+        String normalized = String.join(" ", SearchTokenizer.tokenize(name));
+        if (normalized.isEmpty()) return;
+
+        String id = type + ":" + normalized;
+        CompletionGroup group = completionGroups.computeIfAbsent(id, k -> new CompletionGroup(name.trim()));
+        group.products += productDelta;
+        group.unitsSold += unitsDelta;
+
+        if (group.products <= 0) {
+            completionGroups.remove(id);
+            for (String key : completionKeys(group.text)) autocompleteTrie.remove(key, id);
+            return;
+        }
+
+        // Categories with more products and more sales float to the top
+        Completion completion = new Completion(id, group.text, type, null, group.products + group.unitsSold);
+        for (String key : completionKeys(group.text)) autocompleteTrie.put(key, completion);
+    }
+
+    // Whether any of the text's untruncated completion keys starts with the key
+    private static boolean startsWithPrefix(String text, String key) {
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (String.join(" ", tokens.subList(i, tokens.size())).startsWith(key)) return true;
+        }
+        return false;
+    }
+
+    // One key per word so "silk" completes to "Red Silk Dress" as well as "red" does
+    private static Set<String> completionKeys(String text) {
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String key = String.join(" ", tokens.subList(i, tokens.size()));
+            keys.add(key.length() > MAX_COMPLETION_KEY_LENGTH ? key.substring(0, MAX_COMPLETION_KEY_LENGTH) : key);
+        }
+        return keys;
+    }
+
+    // What the index remembers about a product besides its postings
+    private static final class IndexedProduct {
+        private final Long id;
+        private final String name;
+        private final String category;
+        private final String subcategory;
+        private final BigDecimal price;
+        private final LocalDateTime createdAt;
+        private final String priceBucket;
+        private final List<ProductAttribute> attributes;
+        private final Set<String> terms;
+        private final Set<String> vocabulary;
+        private final int[] fieldLengths;
+
+        private IndexedProduct(Product product, Set<String> terms, Set<String> vocabulary, int[] fieldLengths,
+                               String priceBucket) {
+            this.id = product.getId();
+            this.name = product.getName();
+            this.category = product.getCategory();
+            this.subcategory = product.getSubcategory();
+            this.price = product.getPrice();
+            this.createdAt = product.getCreatedAt();
+            this.priceBucket = priceBucket;
+            this.attributes = product.getAttributes() != null ? List.copyOf(product.getAttributes()) : List.of();
+            this.terms = terms;
+            this.vocabulary = vocabulary;
+            this.fieldLengths = fieldLengths;
+        }
+
+        private boolean matchesPrice(ProductFilterRequest filter) {
+            if (filter.getMinPrice() != null && (price == null || price.compareTo(filter.getMinPrice()) < 0)) return false;
+            if (filter.getMaxPrice() != null && (price == null || price.compareTo(filter.getMaxPrice()) > 0)) return false;
+            return true;
+        }
+
+        // Ascending, nulls first like MySQL; names compare case-insensitively like its collation
+        private static Comparator<IndexedProduct> order(String sortBy) {
+            Comparator<IndexedProduct> bySortKey;
+            if ("name".equalsIgnoreCase(sortBy)) {
+                bySortKey = Comparator.comparing(doc -> doc.name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            } else if ("price".equalsIgnoreCase(sortBy)) {
+                bySortKey = Comparator.comparing(doc -> doc.price, Comparator.nullsFirst(Comparator.naturalOrder()));
+            } else {
+                bySortKey = Comparator.comparing(doc -> doc.createdAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+            }
+            return bySortKey.thenComparing(doc -> doc.id);
+        }
+    }
+
+    private static final class CompletionGroup {
+        private final String text;
+        private int products;
+        private long unitsSold;
+
+        private CompletionGroup(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class ScoredId {
+        // Lowest score first; on ties the older (smaller) id ranks lower
+        private static final Comparator<ScoredId> ASCENDING = Comparator
+                .comparingDouble((ScoredId s) -> s.score)
+                .thenComparing(s -> s.id);
+
+        private final Long id;
+        private final double score;
+
+        private ScoredId(Long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
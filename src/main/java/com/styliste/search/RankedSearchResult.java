@@ -0,0 +1,13 @@
+package com.styliste.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class RankedSearchResult {
+    private final List<Long> productIds; // one page, best match first
+    private final int totalMatches;
+}
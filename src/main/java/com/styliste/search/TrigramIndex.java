@@ -0,0 +1,141 @@
+package com.styliste.search;
+
+import java.util.*;
+
+// Character-trigram index over the search vocabulary (words from product names and
+// category/subcategory names). Used to find known words within a small edit distance
+// of a misspelled query token. Not thread-safe on its own; ProductSearchIndex guards it.
+class TrigramIndex {
+
+    // Only the best candidates by shared trigram count get the (more expensive) edit distance check
+    private static final int MAX_CANDIDATES = 50;
+
+    // word -> number of indexed occurrences, doubles as the popularity tie-breaker
+    private final Map<String, Integer> wordCounts = new HashMap<>();
+
+    private final Map<String, Set<String>> trigramToWords = new HashMap<>();
+
+    void add(String word) {
+        if (wordCounts.merge(word, 1, Integer::sum) == 1) {
+            for (String trigram : trigrams(word)) {
+                trigramToWords.computeIfAbsent(trigram, t -> new HashSet<>()).add(word);
+            }
+        }
+    }
+
+    void remove(String word) {
+        Integer count = wordCounts.get(word);
+        if (count == null) return;
+        if (count > 1) {
+            wordCounts.put(word, count - 1);
+            return;
+        }
+
+        wordCounts.remove(word);
+        for (String trigram : trigrams(word)) {
+            Set<String> words = trigramToWords.get(trigram);
+            if (words == null) continue;
+            words.remove(word);
+            if (words.isEmpty()) trigramToWords.remove(trigram);
+        }
+    }
+
+    void clear() {
+        wordCounts.clear();
+        trigramToWords.clear();
+    }
+
+    boolean contains(String word) {
+        return wordCounts.containsKey(word);
+    }
+
+    // Known words within the allowed edit distance of the token, closest (then most common) first
+    List<String> similarWords(String token, int limit) {
+        int maxDistance = maxEditDistance(token);
+
+        Map<String, Integer> sharedCounts = new HashMap<>();
+        for (String trigram : trigrams(token)) {
+            Set<String> words = trigramToWords.get(trigram);
+            if (words == null) continue;
+            for (String word : words) {
+                if (Math.abs(word.length() - token.length()) <= maxDistance) {
+                    sharedCounts.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>(sharedCounts.entrySet());
+        candidates.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        List<Suggestion> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.size() && i < MAX_CANDIDATES; i++) {
+            String word = candidates.get(i).getKey();
+            int distance = boundedEditDistance(token, word, maxDistance);
+            if (distance <= maxDistance && !word.equals(token)) {
+                matches.add(new Suggestion(word, distance, wordCounts.getOrDefault(word, 0)));
+            }
+        }
+
+        matches.sort(Comparator.comparingInt((Suggestion s) -> s.distance)
+                .thenComparing(s -> -s.count)
+                .thenComparing(s -> s.word));
+
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            result.add(matches.get(i).word);
+        }
+        return result;
+    }
+
+    private static int maxEditDistance(String token) {
+        if (token.length() <= 2) return 0;
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    // Padded so short words and word boundaries still produce trigrams ("$dr", "dre", ... "ss$")
+    private static Set<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // Levenshtein distance that gives up as soon as every cell in a row exceeds the bound
+    private static int boundedEditDistance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) return bound + 1;
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) return bound + 1;
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class Suggestion {
+        private final String word;
+        private final int distance;
+        private final int count;
+
+        private Suggestion(String word, int distance, int count) {
+            this.word = word;
+            this.distance = distance;
+            this.count = count;
+        }
+    }
+}
@@ -19,7 +19,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,6 +35,9 @@ public class AppointmentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
     public AppointmentDTO createAppointment(Long userId, CreateAppointmentRequest request) {
         log.info("Creating appointment for user: {}", userId);
 
@@ -57,6 +62,7 @@ public class AppointmentService {
 
             Appointment savedAppointment = appointmentRepository.save(appointment);
             log.info("Appointment created with ID: {}", savedAppointment.getId());
+            statisticsService.appointmentStatusChanged(null, savedAppointment.getStatus());
 
             return mapToDTO(savedAppointment);
         } catch (IllegalArgumentException ex) {
@@ -77,6 +83,7 @@ public class AppointmentService {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + id));
 
+        AppointmentStatus oldStatus = appointment.getStatus();
         if (request.getStatus() != null) {
             try {
                 AppointmentStatus status = AppointmentStatus.valueOf(request.getStatus().toUpperCase());
@@ -91,6 +98,7 @@ public class AppointmentService {
         }
 
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        statisticsService.appointmentStatusChanged(oldStatus, updatedAppointment.getStatus());
         log.info("Appointment updated successfully");
         return mapToDTO(updatedAppointment);
     }
@@ -101,8 +109,10 @@ public class AppointmentService {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + id));
 
+        AppointmentStatus oldStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointmentRepository.save(appointment);
+        statisticsService.appointmentStatusChanged(oldStatus, AppointmentStatus.CANCELLED);
     }
 
     public Page<AppointmentDTO> getUserAppointments(Long userId, Integer page, Integer pageSize) {
@@ -132,19 +142,37 @@ public class AppointmentService {
         return appointmentRepository.findAll(pageable).map(this::mapToDTO);
     }
 
+    public CursorPage<AppointmentDTO> scrollAppointments(String cursor, Integer pageSize) {
+        log.debug("Scrolling appointments after cursor: {}", cursor);
+
+        int size = CursorPage.clampSize(pageSize, 10);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Appointment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = appointmentRepository.findFirstByAppointmentDate(limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = appointmentRepository.findAfterAppointmentDate(after.sortKeyAsDate(), after.getId(), limit);
+        }
+
+        return CursorPage.fromRows(rows, size, this::mapToDTO,
+                appointment -> PageCursor.encode(appointment.getAppointmentDate(), appointment.getId()));
+    }
+
     public AppointmentStatisticsDTO getAppointmentStatistics() {
         log.debug("Calculating appointment statistics");
 
-        long totalAppointments = appointmentRepository.count();
-        long pendingAppointments = appointmentRepository.countByStatus(AppointmentStatus.PENDING);
-        long confirmedAppointments = appointmentRepository.countByStatus(AppointmentStatus.CONFIRMED);
-        long completedAppointments = appointmentRepository.countByStatus(AppointmentStatus.COMPLETED);
+        Map<AppointmentStatus, Long> counts = statisticsService.appointmentCounts();
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        counts.forEach((status, count) -> byStatus.put(status.name(), count));
 
         return AppointmentStatisticsDTO.builder()
-                .totalAppointments(totalAppointments)
-                .pendingAppointments(pendingAppointments)
-                .confirmedAppointments(confirmedAppointments)
-                .completedAppointments(completedAppointments)
+                .totalAppointments(counts.values().stream().mapToLong(Long::longValue).sum())
+                .pendingAppointments(counts.get(AppointmentStatus.PENDING))
+                .confirmedAppointments(counts.get(AppointmentStatus.CONFIRMED))
+                .completedAppointments(counts.get(AppointmentStatus.COMPLETED))
+                .byStatus(byStatus)
                 .build();
     }
 
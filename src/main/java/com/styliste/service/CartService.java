@@ -0,0 +1,332 @@
+package com.styliste.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.styliste.dto.*;
+import com.styliste.entity.ReservationStatus;
+import com.styliste.exception.BadRequestException;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.ProductListing;
+import com.styliste.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Server-side carts, one per user, held in memory: bounded by cart.max-carts and dropped after
+// cart.ttl without use. Quotes price the lines from a short-lived snapshot of price and stock
+// per product, loaded for all missing products in one query, so quoting a cart doesn't go to
+// the DB per line. Snapshots can be up to cart.quote.snapshot-ttl old; checkout refreshes the
+// cart's products, rejects the cart if anything can't be ordered, and only then places the
+// order (which still takes the stock itself, so a stale quote can't oversell).
+@Slf4j
+@Service
+public class CartService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private HotInventoryService hotInventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private final Cache<Long, Cart> carts;
+    private final Cache<Long, ProductSnapshot> snapshots;
+    private final int maxLines;
+    private final LongAdder invalidations = new LongAdder();
+
+    public CartService(@Value("${cart.max-carts:100000}") long maxCarts,
+                       @Value("${cart.ttl:48h}") Duration ttl,
+                       @Value("${cart.max-lines:50}") int maxLines,
+                       @Value("${cart.quote.snapshot-max-size:20000}") long snapshotMaxSize,
+                       @Value("${cart.quote.snapshot-ttl:30s}") Duration snapshotTtl) {
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(ttl)
+                .build();
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(snapshotMaxSize)
+                .expireAfterWrite(snapshotTtl)
+                .recordStats()
+                .build();
+        this.maxLines = maxLines;
+    }
+
+    public CartQuoteDTO quote(Long userId, String reservationId) {
+        return quote(cartOf(userId).lines(), held(userId, reservationId));
+    }
+
+    // Same product, size and colour as an existing line adds to that line
+    public CartQuoteDTO addItem(Long userId, CartItemDTO item) {
+        if (snapshots(Set.of(item.getProductId())).get(item.getProductId()) == null) {
+            throw new ResourceNotFoundException("Product not found with ID: " + item.getProductId());
+        }
+        Cart cart = cartOf(userId);
+        cart.add(item, maxLines);
+        return quote(cart.lines(), Map.of());
+    }
+
+    public CartQuoteDTO updateItem(Long userId, Long lineId, int quantity) {
+        Cart cart = cartOf(userId);
+        cart.update(lineId, quantity);
+        return quote(cart.lines(), Map.of());
+    }
+
+    public CartQuoteDTO removeItem(Long userId, Long lineId) {
+        Cart cart = cartOf(userId);
+        cart.remove(lineId);
+        return quote(cart.lines(), Map.of());
+    }
+
+    public void clear(Long userId) {
+        carts.invalidate(userId);
+    }
+
+    // The whole cart goes to createOrder as one request, after a fresh quote says it can be
+    // ordered; the cart is emptied once the order exists
+    public OrderDTO checkout(Long userId, CheckoutRequest request, String idempotencyKey) {
+        Cart cart = cartOf(userId);
+        List<CartLine> lines = cart.lines();
+
+        // A retry of a checkout that went through finds the cart already emptied, so the key is
+        // looked up before the cart is checked. Lines are read first: the order is recorded
+        // before they're removed, so a retry that sees them gone also sees the order.
+        if (idempotencyKey != null) {
+            Optional<OrderDTO> placed = idempotencyService.findCompleted(userId, idempotencyKey);
+            if (placed.isPresent()) {
+                log.info("Replaying checkout of user {} as order {}", userId, placed.get().getId());
+                return placed.get();
+            }
+        }
+        if (lines.isEmpty()) {
+            throw new BadRequestException("Cart is empty");
+        }
+
+        Set<Long> productIds = lines.stream().map(line -> line.productId).collect(Collectors.toSet());
+        snapshots.invalidateAll(productIds);
+        invalidations.add(productIds.size());
+        CartQuoteDTO quote = quote(lines, held(userId, request.getReservationId()));
+        if (!quote.isOrderable()) {
+            String problems = quote.getLines().stream()
+                    .filter(line -> !line.isAvailable())
+                    .map(line -> line.getProductName() + ": " + line.getMessage())
+                    .collect(Collectors.joining("; "));
+            throw new BadRequestException("Cart can't be ordered as it is: " + problems);
+        }
+
+        CreateOrderRequest order = CreateOrderRequest.builder()
+                .items(lines.stream().map(CartLine::toItem).collect(Collectors.toList()))
+                .shippingAddress(request.getShippingAddress())
+                .reservationId(request.getReservationId())
+                .build();
+        OrderDTO placed = idempotencyKey != null
+                ? idempotencyService.createOrder(userId, idempotencyKey, order)
+                : orderService.createOrder(userId, order);
+
+        cart.removeAll(lines);
+        log.info("Checked out cart of user {} as order {}", userId, placed.getId());
+        return placed;
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = snapshots.stats();
+        return CacheStatsDTO.builder()
+                .name("cart-quotes")
+                .entries(snapshots.estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private Cart cartOf(Long userId) {
+        return carts.get(userId, id -> new Cart());
+    }
+
+    // Units an active reservation already holds for this user don't show up in stock
+    private Map<Long, Integer> held(Long userId, String reservationId) {
+        if (reservationId == null || reservationId.isBlank()) return Map.of();
+        ReservationDTO reservation = reservationService.getReservation(reservationId, userId);
+        return ReservationStatus.ACTIVE.name().equals(reservation.getStatus()) ? reservation.getQuantities() : Map.of();
+    }
+
+    private CartQuoteDTO quote(List<CartLine> lines, Map<Long, Integer> held) {
+        Map<Long, ProductSnapshot> products = snapshots(lines.stream().map(line -> line.productId).collect(Collectors.toSet()));
+
+        // Stock is checked against the total per product, like createOrder does
+        Map<Long, Integer> wanted = new HashMap<>();
+        lines.forEach(line -> wanted.merge(line.productId, line.quantity, Integer::sum));
+
+        List<CartLineDTO> quoted = new ArrayList<>(lines.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int itemCount = 0;
+        boolean orderable = !lines.isEmpty();
+        for (CartLine line : lines) {
+            ProductSnapshot product = products.get(line.productId);
+            String problem = null;
+            if (product == null) {
+                problem = "Product is no longer available";
+            } else if (!product.active) {
+                problem = "Product is no longer sold";
+            } else if (product.stock + held.getOrDefault(line.productId, 0) < wanted.get(line.productId)) {
+                problem = "Only " + Math.max(0, product.stock + held.getOrDefault(line.productId, 0)) + " in stock";
+            }
+
+            BigDecimal unitPrice = product != null ? product.price : null;
+            BigDecimal lineTotal = unitPrice != null ? unitPrice.multiply(new BigDecimal(line.quantity)) : null;
+            if (problem == null) {
+                subtotal = subtotal.add(lineTotal);
+                itemCount += line.quantity;
+            } else {
+                orderable = false;
+            }
+            quoted.add(CartLineDTO.builder()
+                    .lineId(line.id)
+                    .productId(line.productId)
+                    .productName(product != null ? product.name : null)
+                    .selectedSize(line.selectedSize)
+                    .selectedColor(line.selectedColor)
+                    .quantity(line.quantity)
+                    .unitPrice(unitPrice)
+                    .lineTotal(lineTotal)
+                    .available(problem == null)
+                    .message(problem)
+                    .build());
+        }
+
+        return CartQuoteDTO.builder()
+                .lines(quoted)
+                .itemCount(itemCount)
+                .subtotal(subtotal)
+                .orderable(orderable)
+                .quotedAt(LocalDateTime.now())
+                .build();
+    }
+
+    // Cached snapshots, with all the missing ones loaded in one query
+    private Map<Long, ProductSnapshot> snapshots(Set<Long> productIds) {
+        if (productIds.isEmpty()) return Map.of();
+        return snapshots.getAll(productIds, missing -> productRepository.findListingsByIds(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(ProductListing::getId, this::snapshotOf)));
+    }
+
+    private ProductSnapshot snapshotOf(ProductListing product) {
+        // Hot products' stock lives in HotInventoryService's counters, not the column
+        int hot = hotInventoryService.available(product.getId());
+        int stock = hot >= 0 ? hot : product.getStock() != null ? product.getStock() : 0;
+        BigDecimal price = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
+        return new ProductSnapshot(product.getName(), price, stock, !Boolean.FALSE.equals(product.getIsActive()));
+    }
+
+    private static final class ProductSnapshot {
+        private final String name;
+        private final BigDecimal price;
+        private final int stock;
+        private final boolean active;
+
+        private ProductSnapshot(String name, BigDecimal price, int stock, boolean active) {
+            this.name = name;
+            this.price = price;
+            this.stock = stock;
+            this.active = active;
+        }
+    }
+
+    private static final class CartLine {
+        private final long id;
+        private final Long productId;
+        private final int quantity;
+        private final String selectedSize;
+        private final String selectedColor;
+
+        private CartLine(long id, Long productId, int quantity, String selectedSize, String selectedColor) {
+            this.id = id;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.selectedSize = selectedSize;
+            this.selectedColor = selectedColor;
+        }
+
+        private boolean sameVariant(CartItemDTO item) {
+            return productId.equals(item.getProductId()) && Objects.equals(selectedSize, item.getSelectedSize())
+                    && Objects.equals(selectedColor, item.getSelectedColor());
+        }
+
+        private CartLine withQuantity(int newQuantity) {
+            return new CartLine(id, productId, newQuantity, selectedSize, selectedColor);
+        }
+
+        private CartItemDTO toItem() {
+            return CartItemDTO.builder()
+                    .productId(productId)
+                    .quantity(quantity)
+                    .selectedSize(selectedSize)
+                    .selectedColor(selectedColor)
+                    .build();
+        }
+    }
+
+    // Lines are immutable and replaced on change, so lines() can hand out a plain copy
+    private static final class Cart {
+        private final List<CartLine> lines = new ArrayList<>();
+        private long nextLineId = 1;
+
+        private synchronized List<CartLine> lines() {
+            return new ArrayList<>(lines);
+        }
+
+        private synchronized void add(CartItemDTO item, int maxLines) {
+            for (int i = 0; i < lines.size(); i++) {
+                CartLine line = lines.get(i);
+                if (line.sameVariant(item)) {
+                    lines.set(i, line.withQuantity(line.quantity + item.getQuantity()));
+                    return;
+                }
+            }
+            if (lines.size() >= maxLines) {
+                throw new BadRequestException("Cart can't hold more than " + maxLines + " lines");
+            }
+            lines.add(new CartLine(nextLineId++, item.getProductId(), item.getQuantity(),
+                    item.getSelectedSize(), item.getSelectedColor()));
+        }
+
+        private synchronized void update(Long lineId, int quantity) {
+            int index = indexOf(lineId);
+            lines.set(index, lines.get(index).withQuantity(quantity));
+        }
+
+        private synchronized void remove(Long lineId) {
+            lines.remove(indexOf(lineId));
+        }
+
+        // Checkout removes exactly the lines it ordered; anything changed meanwhile stays
+        private synchronized void removeAll(List<CartLine> ordered) {
+            lines.removeAll(ordered);
+        }
+
+        private int indexOf(Long lineId) {
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).id == lineId) return i;
+            }
+            throw new ResourceNotFoundException("Cart line not found with ID: " + lineId);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.styliste.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.styliste.dto.CacheStatsDTO;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized response bodies for the public catalog endpoints, stored as plain and gzipped
+// JSON so a hit is a byte copy. Any product or category write drops everything: there are
+// only a handful of distinct catalog pages and one write can change any of them. Stock
+// changes from orders don't, or every sale would empty the cache; the stock shown in a
+// cached listing can be up to cache.catalog.ttl old, and ordering still checks the real stock.
+@Slf4j
+@Component
+public class CatalogResponseCache {
+
+    private final Cache<String, CachedResponse> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    // Bumped on every invalidation. A response rendered from data read before the bump is
+    // not stored, otherwise a request racing a write could cache the old catalog.
+    private final AtomicLong generation = new AtomicLong();
+
+    public CatalogResponseCache(@Value("${cache.catalog.max-size-bytes:33554432}") long maxSizeBytes,
+                                @Value("${cache.catalog.ttl:1m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String key, CachedResponse response) -> response.size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String key, String contentType, byte[] body, long renderedAtGeneration) {
+        CachedResponse response = new CachedResponse(contentType, body, gzip(body));
+        if (generation.get() != renderedAtGeneration) return;
+        cache.put(key, response);
+        // An invalidation may have slipped in between the check and the put
+        if (generation.get() != renderedAtGeneration) cache.invalidate(key);
+    }
+
+    // Drops everything now and again once the surrounding transaction commits
+    public void invalidateAll() {
+        clear();
+        invalidations.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction()
+                .flatMap(eviction -> eviction.weightedSize().stream().boxed().findFirst())
+                .orElse(0L);
+
+        return CacheStatsDTO.builder()
+                .name("catalog-responses")
+                .entries(cache.estimatedSize())
+                .weightedSize(weightedSize)
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Getter
+    public static class CachedResponse {
+        private final String contentType;
+        private final byte[] body;
+        private final byte[] gzippedBody;
+
+        private CachedResponse(String contentType, byte[] body, byte[] gzippedBody) {
+            this.contentType = contentType;
+            this.body = body;
+            this.gzippedBody = gzippedBody;
+        }
+
+        private int size() {
+            return 64 + body.length + gzippedBody.length;
+        }
+    }
+}
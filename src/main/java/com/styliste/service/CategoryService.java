@@ -18,6 +18,7 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final SubCategoryRepository subCategoryRepository;
+    private final CatalogResponseCache catalogResponseCache;
 
     // --- CATEGORY OPERATIONS ---
 
@@ -38,6 +39,7 @@ public class CategoryService {
                 .description(description)
                 .isActive(true)
                 .build();
+        catalogResponseCache.invalidateAll();
         return categoryRepository.save(category);
     }
 
@@ -46,6 +48,7 @@ public class CategoryService {
             throw new ResourceNotFoundException("Category not found");
         }
         categoryRepository.deleteById(id);
+        catalogResponseCache.invalidateAll();
     }
 
     // --- SUB-CATEGORY OPERATIONS ---
@@ -62,11 +65,14 @@ public class CategoryService {
                 .category(category)
                 .build();
 
+        catalogResponseCache.invalidateAll();
+
         // 3. Save Child directly (Returns the ID immediately)
         return subCategoryRepository.save(subCategory);
     }
 
     public void deleteSubCategory(Long subId) {
         subCategoryRepository.deleteById(subId);
+        catalogResponseCache.invalidateAll();
     }
 }
\ No newline at end of file
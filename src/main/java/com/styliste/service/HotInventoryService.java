@@ -0,0 +1,319 @@
+package com.styliste.service;
+
+import com.styliste.entity.Product;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Flash-sale mode for individual products. While a product is "hot", its available stock lives
+// in striped in-memory counters instead of the products.stock row, so concurrent checkouts
+// don't all queue on one row lock. Units sold are written back to products.stock in batches
+// every few hundred ms. The counters are per JVM: only switch this on when the app runs as a
+// single instance. Units sold since the last flush are lost if the process dies.
+@Slf4j
+@Service
+public class HotInventoryService {
+
+    public enum Outcome { RESERVED, INSUFFICIENT, NOT_HOT }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    private final Map<Long, StripedStock> counters = new ConcurrentHashMap<>();
+    private final int stripeCount;
+    private final TransactionTemplate writeBehind;
+
+    public HotInventoryService(@Value("${inventory.hot.stripes:8}") int stripeCount,
+                               PlatformTransactionManager transactionManager) {
+        this.stripeCount = Math.max(1, stripeCount);
+        this.writeBehind = new TransactionTemplate(transactionManager);
+        this.writeBehind.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHotProducts() {
+        productRepository.findByHotInventoryTrue()
+                .forEach(product -> counters.put(product.getId(), new StripedStock(stripeCount, product.getStock())));
+        if (!counters.isEmpty()) log.info("Hot inventory enabled for products {}", counters.keySet());
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Takes quantity units from the product's counters. Inside a transaction the units go back
+    // automatically if it rolls back.
+    public Outcome tryReserve(Long productId, int quantity) {
+        StripedStock stock = counters.get(productId);
+        if (stock == null) return Outcome.NOT_HOT;
+
+        Outcome outcome = stock.tryReserve(quantity);
+        if (outcome == Outcome.RESERVED && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) release(productId, stock, quantity);
+                }
+            });
+        }
+        return outcome;
+    }
+
+    // Switching on: lock the row so in-flight DB-path checkouts either finish first (and are
+    // in the stock we read) or wait and then miss the hot_inventory = false condition.
+    @Transactional
+    public void enable(Long productId) {
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
+        if (Boolean.TRUE.equals(product.getHotInventory())) return;
+
+        product.setHotInventory(true);
+        int available = product.getStock();
+        afterCommit(() -> counters.put(productId, new StripedStock(stripeCount, available)));
+        log.info("Hot inventory enabled for product {} with {} units", productId, available);
+    }
+
+    // Switching off: close the counters (later reservations fall back to the DB path and wait
+    // on our row lock) and write the unflushed sales into products.stock in the same transaction
+    @Transactional
+    public void disable(Long productId) {
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
+        if (!Boolean.TRUE.equals(product.getHotInventory())) return;
+
+        StripedStock stock = counters.get(productId);
+        int[] drained = stock != null ? stock.close() : new int[]{0, 0};
+        product.setStock(product.getStock() - drained[1]);
+        product.setHotInventory(false);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (stock == null) return;
+                if (status == STATUS_COMMITTED) counters.remove(productId, stock);
+                else counters.replace(productId, stock, StripedStock.reopen(stripeCount, drained[0], drained[1]));
+            }
+        });
+        log.info("Hot inventory disabled for product {}, {} units left", productId, product.getStock());
+    }
+
+    // Write-behind: push units sold since the last flush to products.stock
+    @Scheduled(fixedDelayString = "${inventory.hot.flush-interval-ms:500}")
+    @PreDestroy
+    public void flush() {
+        counters.forEach((productId, stock) -> {
+            int sold = stock.takeSold();
+            if (sold == 0) return;
+            try {
+                writeBehind.executeWithoutResult(status -> productRepository.adjustStock(productId, -sold));
+                productCache.invalidate(productId);
+            } catch (RuntimeException e) {
+                log.error("Failed to write back {} sold units for product {}, will retry", sold, productId, e);
+                if (!stock.returnSold(sold)) {
+                    log.error("Product {} left hot inventory with {} unrecorded sales", productId, sold);
+                }
+            }
+        });
+    }
+
+    // Returns units to the counters (released reservations), once the surrounding transaction
+    // commits. False if the product isn't hot, in which case the caller puts them back on products.stock.
+    public boolean giveBack(Long productId, int quantity) {
+        StripedStock stock = counters.get(productId);
+        if (stock == null) return false;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            afterCommit(() -> release(productId, stock, quantity));
+        } else {
+            release(productId, stock, quantity);
+        }
+        return true;
+    }
+
+    public int available(Long productId) {
+        StripedStock stock = counters.get(productId);
+        return stock != null ? stock.available() : -1;
+    }
+
+    private void release(Long productId, StripedStock stock, int quantity) {
+        if (stock.release(quantity)) return;
+        // Counters were closed in the meantime, so the units already went back to the DB as sold
+        writeBehind.executeWithoutResult(status -> productRepository.adjustStock(productId, quantity));
+        productCache.invalidate(productId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Available stock split across stripes. Each stripe packs two ints into one long: units
+    // available (low half) and units sold since the last flush (high half, negative after
+    // returns), so reserving, flushing and closing are single CAS operations and never lose
+    // a sale between the two numbers.
+    private static final class StripedStock {
+        private static final long CLOSED = Long.MIN_VALUE;
+
+        private final AtomicLongArray stripes;
+        private final Object rebalanceLock = new Object();
+
+        private StripedStock(int stripeCount, int available) {
+            this.stripes = new AtomicLongArray(stripeCount);
+            for (int i = 0; i < stripeCount; i++) {
+                stripes.set(i, pack(0, share(available, stripeCount, i)));
+            }
+        }
+
+        private static StripedStock reopen(int stripeCount, int available, int sold) {
+            StripedStock stock = new StripedStock(stripeCount, available);
+            stock.stripes.set(0, pack(sold, available(stock.stripes.get(0))));
+            return stock;
+        }
+
+        private Outcome tryReserve(int quantity) {
+            int home = homeStripe();
+            while (true) {
+                long value = stripes.get(home);
+                if (value == CLOSED) return Outcome.NOT_HOT;
+                if (available(value) < quantity) break;
+                if (stripes.compareAndSet(home, value, pack(sold(value) + quantity, available(value) - quantity))) {
+                    return Outcome.RESERVED;
+                }
+            }
+            return rebalanceAndReserve(home, quantity);
+        }
+
+        // Home stripe ran dry: gather everything, take what we need and spread the rest evenly again
+        private Outcome rebalanceAndReserve(int home, int quantity) {
+            synchronized (rebalanceLock) {
+                if (stripes.get(0) == CLOSED) return Outcome.NOT_HOT;
+
+                int total = 0;
+                for (int i = 0; i < stripes.length(); i++) {
+                    long value;
+                    do {
+                        value = stripes.get(i);
+                    } while (!stripes.compareAndSet(i, value, pack(sold(value), 0)));
+                    total += available(value);
+                }
+
+                boolean reserved = total >= quantity;
+                if (reserved) {
+                    total -= quantity;
+                    addToStripe(home, quantity, 0);
+                }
+                for (int i = 0; i < stripes.length(); i++) {
+                    addToStripe(i, 0, share(total, stripes.length(), i));
+                }
+                return reserved ? Outcome.RESERVED : Outcome.INSUFFICIENT;
+            }
+        }
+
+        private boolean release(int quantity) {
+            int home = homeStripe();
+            while (true) {
+                long value = stripes.get(home);
+                if (value == CLOSED) return false;
+                if (stripes.compareAndSet(home, value, pack(sold(value) - quantity, available(value) + quantity))) {
+                    return true;
+                }
+            }
+        }
+
+        private int takeSold() {
+            int sold = 0;
+            for (int i = 0; i < stripes.length(); i++) {
+                long value;
+                do {
+                    value = stripes.get(i);
+                    if (value == CLOSED) return sold;
+                } while (!stripes.compareAndSet(i, value, pack(0, available(value))));
+                sold += sold(value);
+            }
+            return sold;
+        }
+
+        private boolean returnSold(int sold) {
+            while (true) {
+                long value = stripes.get(0);
+                if (value == CLOSED) return false;
+                if (stripes.compareAndSet(0, value, pack(sold(value) + sold, available(value)))) return true;
+            }
+        }
+
+        // Returns {available, sold since last flush} and makes every later operation see CLOSED
+        private int[] close() {
+            synchronized (rebalanceLock) {
+                int available = 0;
+                int sold = 0;
+                for (int i = 0; i < stripes.length(); i++) {
+                    long value = stripes.getAndSet(i, CLOSED);
+                    if (value == CLOSED) continue;
+                    available += available(value);
+                    sold += sold(value);
+                }
+                return new int[]{available, sold};
+            }
+        }
+
+        private int available() {
+            int available = 0;
+            for (int i = 0; i < stripes.length(); i++) {
+                long value = stripes.get(i);
+                if (value != CLOSED) available += available(value);
+            }
+            return available;
+        }
+
+        private void addToStripe(int i, int sold, int available) {
+            long value;
+            do {
+                value = stripes.get(i);
+            } while (!stripes.compareAndSet(i, value, pack(sold(value) + sold, available(value) + available)));
+        }
+
+        private int homeStripe() {
+            return (int) (Thread.currentThread().getId() % stripes.length());
+        }
+
+        private static int share(int total, int parts, int index) {
+            return total / parts + (index < total % parts ? 1 : 0);
+        }
+
+        private static long pack(int sold, int available) {
+            return ((long) sold << 32) | (available & 0xFFFFFFFFL);
+        }
+
+        private static int available(long value) {
+            return (int) value;
+        }
+
+        private static int sold(long value) {
+            return (int) (value >> 32);
+        }
+    }
+}
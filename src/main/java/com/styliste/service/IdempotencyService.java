@@ -0,0 +1,192 @@
+package com.styliste.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.OrderDTO;
+import com.styliste.entity.IdempotencyRecord;
+import com.styliste.exception.BadRequestException;
+import com.styliste.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Idempotency-Key support for POST /api/orders. The first request with a key creates the order
+// and records (key -> order id) in the same transaction; replays get that order back. Recent
+// outcomes are kept in an LRU so replays don't hit the DB, and duplicates arriving while the
+// first is still running wait for its result instead of running again.
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Cache<String, CompletedRequest> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<OrderDTO>> inFlight = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdempotencyService(@Value("${idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${idempotency.retention:24h}") Duration retention,
+                              PlatformTransactionManager transactionManager) {
+        this.retention = retention;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public OrderDTO createOrder(Long userId, String idempotencyKey, CreateOrderRequest request) {
+        String id = recordId(userId, idempotencyKey);
+        String requestHash = hash(request);
+
+        CompletedRequest cached = completed.getIfPresent(id);
+        if (cached != null) return replay(cached, requestHash);
+
+        CompletableFuture<OrderDTO> mine = new CompletableFuture<>();
+        CompletableFuture<OrderDTO> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            log.info("Waiting for in-flight request with idempotency key {}", id);
+            OrderDTO order = await(running);
+            return replay(completed.asMap().getOrDefault(id, new CompletedRequest(requestHash, order)), requestHash);
+        }
+
+        try {
+            CompletedRequest result = execute(id, requestHash, userId, request);
+            completed.put(id, result);
+            mine.complete(result.order);
+            return replay(result, requestHash);
+        } catch (RuntimeException e) {
+            // Failures aren't remembered: the client may fix the problem and retry with the same key
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    // The order a key already produced, without comparing requests: a cart checkout can't be
+    // rebuilt for comparison once its lines have been ordered and taken out of the cart
+    public Optional<OrderDTO> findCompleted(Long userId, String idempotencyKey) {
+        String id = recordId(userId, idempotencyKey);
+        CompletedRequest cached = completed.getIfPresent(id);
+        if (cached != null) return Optional.of(cached.order);
+        return idempotencyRecordRepository.findById(id).map(record -> {
+            CompletedRequest result = fromRecord(record);
+            completed.put(id, result);
+            return result.order;
+        });
+    }
+
+    @Scheduled(cron = "${idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteOlderThan(LocalDateTime.now().minus(retention)));
+        if (removed != null && removed > 0) log.info("Purged {} expired idempotency keys", removed);
+    }
+
+    private CompletedRequest execute(String id, String requestHash, Long userId, CreateOrderRequest request) {
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(id);
+        if (existing.isPresent()) return fromRecord(existing.get());
+
+        try {
+            return transactionTemplate.execute(status -> {
+                OrderDTO order = orderService.createOrder(userId, request);
+                idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                        .id(id)
+                        .requestHash(requestHash)
+                        .orderId(order.getId())
+                        .build());
+                return new CompletedRequest(requestHash, order);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance committed the same key first; our order was rolled back with the insert
+            log.info("Idempotency key {} was completed concurrently elsewhere", id);
+            return idempotencyRecordRepository.findById(id).map(this::fromRecord).orElseThrow(() -> e);
+        }
+    }
+
+    // "<userId>:<key>" - keys are only unique per client
+    private static String recordId(Long userId, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        return userId + ":" + idempotencyKey;
+    }
+
+    private CompletedRequest fromRecord(IdempotencyRecord record) {
+        return new CompletedRequest(record.getRequestHash(), orderService.getOrderById(record.getOrderId()));
+    }
+
+    private OrderDTO replay(CompletedRequest completedRequest, String requestHash) {
+        if (!completedRequest.requestHash.equals(requestHash)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+        return completedRequest.order;
+    }
+
+    private OrderDTO await(CompletableFuture<OrderDTO> running) {
+        try {
+            return running.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BadRequestException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String hash(CreateOrderRequest request) {
+        try {
+            byte[] json = objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint order request", e);
+        }
+    }
+
+    private static final class CompletedRequest {
+        private final String requestHash;
+        private final OrderDTO order;
+
+        private CompletedRequest(String requestHash, OrderDTO order) {
+            this.requestHash = requestHash;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.styliste.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Just enough PDF for a text invoice: A4 pages of Courier lines (monospaced, so columns line
+// up; 80 characters fit across), written straight to the output stream with only the xref
+// offsets kept in memory. Characters outside Latin-1 are replaced with '?'.
+class InvoicePdfWriter {
+
+    private static final int LINES_PER_PAGE = 60;
+    private static final int FONT_SIZE = 10;
+    private static final int LEADING = 12;
+    private static final int LEFT_MARGIN = 50;
+    private static final int TOP = 800;
+
+    private final List<String> lines = new ArrayList<>();
+
+    InvoicePdfWriter line(String text) {
+        lines.add(text);
+        return this;
+    }
+
+    InvoicePdfWriter blank() {
+        return line("");
+    }
+
+    void writeTo(OutputStream target) throws IOException {
+        CountingOutput out = new CountingOutput(target);
+        List<List<String>> pages = paginate();
+        int pageCount = pages.size();
+        // Objects: 1 catalog, 2 page tree, 3 font, then a page and its content stream per page
+        long[] offsets = new long[3 + 2 * pageCount + 1];
+
+        out.write("%PDF-1.4\n%âãÏÓ\n");
+
+        offsets[1] = out.count;
+        out.write("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+        offsets[2] = out.count;
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pageCount; i++) kids.append(pageObject(i)).append(" 0 R ");
+        out.write("2 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count " + pageCount + " >>\nendobj\n");
+
+        offsets[3] = out.count;
+        out.write("3 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+        for (int i = 0; i < pageCount; i++) {
+            int page = pageObject(i);
+            offsets[page] = out.count;
+            out.write(page + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] " +
+                    "/Resources << /Font << /F1 3 0 R >> >> /Contents " + (page + 1) + " 0 R >>\nendobj\n");
+
+            byte[] content = content(pages.get(i));
+            offsets[page + 1] = out.count;
+            out.write((page + 1) + " 0 obj\n<< /Length " + content.length + " >>\nstream\n");
+            out.write(content);
+            out.write("\nendstream\nendobj\n");
+        }
+
+        long xref = out.count;
+        out.write("xref\n0 " + offsets.length + "\n0000000000 65535 f \n");
+        for (int i = 1; i < offsets.length; i++) {
+            out.write(String.format("%010d 00000 n \n", offsets[i]));
+        }
+        out.write("trailer\n<< /Size " + offsets.length + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        out.flush();
+    }
+
+    private List<List<String>> paginate() {
+        List<List<String>> pages = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i += LINES_PER_PAGE) {
+            pages.add(lines.subList(i, Math.min(lines.size(), i + LINES_PER_PAGE)));
+        }
+        if (pages.isEmpty()) pages.add(List.of());
+        return pages;
+    }
+
+    private static int pageObject(int index) {
+        return 4 + 2 * index;
+    }
+
+    private static byte[] content(List<String> pageLines) {
+        StringBuilder stream = new StringBuilder()
+                .append("BT /F1 ").append(FONT_SIZE).append(" Tf ").append(LEADING).append(" TL ")
+                .append(LEFT_MARGIN).append(' ').append(TOP).append(" Td\n");
+        for (String line : pageLines) {
+            stream.append('(').append(escape(line)).append(") Tj T*\n");
+        }
+        stream.append("ET");
+        return stream.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '(' || c == ')' || c == '\\') escaped.append('\\').append(c);
+            else if (c < 32 || c > 255) escaped.append('?');
+            else escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static final class CountingOutput {
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        private void write(String text) throws IOException {
+            write(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            count += bytes.length;
+        }
+
+        private void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
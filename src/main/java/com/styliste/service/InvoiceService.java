@@ -0,0 +1,341 @@
+package com.styliste.service;
+
+import com.styliste.entity.Invoice;
+import com.styliste.entity.InvoiceStatus;
+import com.styliste.entity.Order;
+import com.styliste.entity.OrderItem;
+import com.styliste.entity.PaymentStatus;
+import com.styliste.entity.User;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.ArchivedOrderRepository;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Invoices for orders. The row is written in the order's own transaction; the PDF is rendered
+// afterwards on a small bounded pool and written to invoices.storage-dir, and the row keeps
+// only its path, size and SHA-256. Each render gets its own file name, so a download never
+// sees a half-written file. Renders that didn't happen (queue full, failure, restart) are
+// picked up by a periodic sweep.
+@Slf4j
+@Service
+public class InvoiceService {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter FOLDER = DateTimeFormatter.ofPattern("yyyy/MM");
+    private static final int SWEEP_BATCH = 500;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    private final Path storageDir;
+    private final ThreadPoolExecutor renderer;
+    private final TransactionTemplate transactionTemplate;
+    // Invoices queued but not started yet, so the sweep doesn't queue them twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    public InvoiceService(@Value("${invoices.storage-dir:storage/invoices}") String storageDir,
+                         @Value("${invoices.render-threads:2}") int threads,
+                         @Value("${invoices.queue-capacity:1000}") int queueCapacity,
+                         PlatformTransactionManager transactionManager) throws IOException {
+        this.storageDir = Paths.get(storageDir).toAbsolutePath().normalize();
+        Files.createDirectories(this.storageDir);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderer = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-renderer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Called inside the order's transaction; rendering starts once it commits
+    public void orderCreated(Order order) {
+        Invoice invoice = invoiceRepository.save(Invoice.builder()
+                .invoiceNumber(String.format("INV-%08d", order.getId()))
+                .orderId(order.getId())
+                .status(InvoiceStatus.ISSUED)
+                .renderRequestedAt(LocalDateTime.now())
+                .build());
+        afterCommit(() -> submit(invoice.getId()));
+    }
+
+    // The PDF shows the payment status, so it's re-rendered on every change
+    public void paymentStatusChanged(Order order) {
+        Invoice invoice = invoiceRepository.findByOrderId(order.getId()).orElse(null);
+        if (invoice == null) {
+            orderCreated(order);
+            invoice = invoiceRepository.findByOrderId(order.getId()).orElseThrow();
+        }
+        if (order.getPaymentStatus() == PaymentStatus.COMPLETED) {
+            invoice.setStatus(InvoiceStatus.PAID);
+        } else if (order.getPaymentStatus() == PaymentStatus.REFUNDED) {
+            invoice.setStatus(InvoiceStatus.CANCELLED);
+        }
+        invoice.setRenderRequestedAt(LocalDateTime.now());
+        Long invoiceId = invoice.getId();
+        afterCommit(() -> submit(invoiceId));
+    }
+
+    public InvoiceFile getInvoiceFile(Long orderId) {
+        Invoice invoice = invoiceRepository.findByOrderId(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found for order ID: " + orderId));
+        if (invoice.getFilePath() == null) {
+            throw new ResourceNotFoundException("Invoice for order " + orderId + " is still being generated");
+        }
+        Path path = storageDir.resolve(invoice.getFilePath());
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Invoice file missing for order ID: " + orderId);
+        }
+        return new InvoiceFile(path, invoice.getFileSize(), invoice.getChecksum(), invoice.getInvoiceNumber());
+    }
+
+    // Looked up before the invoice itself, so downloads can be authorized first
+    public Long getOrderOwner(Long orderId) {
+        return orderRepository.findUserIdById(orderId)
+                .or(() -> archivedOrderRepository.findUserIdById(orderId))
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
+    }
+
+    @Scheduled(fixedDelayString = "${invoices.sweep-interval-ms:60000}")
+    public void renderMissed() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(30);
+        invoiceRepository.findIdsNeedingRender(before, PageRequest.of(0, SWEEP_BATCH)).forEach(this::submit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    // Waits for queued and running renders; tests call it before measuring. False if some were
+    // still pending when the timeout ran out.
+    boolean awaitRenders(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (renderer.getQueue().size() + renderer.getActiveCount() > 0) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void submit(Long invoiceId) {
+        if (!queued.add(invoiceId)) return;
+        try {
+            renderer.execute(() -> {
+                queued.remove(invoiceId);
+                try {
+                    render(invoiceId);
+                } catch (Exception e) {
+                    log.error("Failed to render invoice {}, the sweep will retry", invoiceId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(invoiceId);
+            log.warn("Invoice render queue is full, invoice {} left for the sweep", invoiceId);
+        }
+    }
+
+    void render(Long invoiceId) throws IOException {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Rendering rendering = transactionTemplate.execute(status -> prepare(invoiceId));
+        if (rendering == null) return;
+
+        Path tmp = Files.createTempFile(storageDir, rendering.invoiceNumber, ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), sha256)) {
+                rendering.pdf.writeTo(out);
+            }
+            String checksum = HexFormat.of().formatHex(sha256.digest());
+            String filePath = rendering.folder + "/" + rendering.invoiceNumber + "-" + checksum.substring(0, 12) + ".pdf";
+            Path target = storageDir.resolve(filePath);
+            Files.createDirectories(target.getParent());
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(target);
+
+            String[] previous = new String[1];
+            boolean saved = Boolean.TRUE.equals(transactionTemplate.execute(status -> invoiceRepository.findById(invoiceId)
+                    .map(invoice -> {
+                        previous[0] = invoice.getFilePath();
+                        invoice.setFilePath(filePath);
+                        invoice.setChecksum(checksum);
+                        invoice.setFileSize(size);
+                        // A request that came in while we were rendering is newer than this and renders again
+                        invoice.setRenderedAt(startedAt);
+                        return true;
+                    })
+                    .orElse(false)));
+            if (!saved) {
+                Files.deleteIfExists(target); // the order (and its invoice) was deleted meanwhile
+                return;
+            }
+            if (previous[0] != null && !previous[0].equals(filePath)) {
+                Files.deleteIfExists(storageDir.resolve(previous[0]));
+            }
+            log.debug("Rendered invoice {} ({} bytes)", rendering.invoiceNumber, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Rendering prepare(Long invoiceId) {
+        Invoice invoice = invoiceRepository.findById(invoiceId).orElse(null);
+        if (invoice == null) return null;
+        Order order = orderRepository.findWithItemsById(invoice.getOrderId()).orElse(null);
+        if (order == null) {
+            // Archived (or deleted) meanwhile: keep the last file and stop the sweep retrying
+            invoice.setRenderedAt(invoice.getRenderRequestedAt());
+            return null;
+        }
+        User customer = order.getUser();
+
+        InvoicePdfWriter pdf = new InvoicePdfWriter()
+                .line("STYLISTE").line("TAX INVOICE").blank()
+                .line("Invoice:  " + invoice.getInvoiceNumber())
+                .line("Date:     " + invoice.getIssuedAt().format(DATE))
+                .line("Order:    #" + order.getId() + " placed " + order.getCreatedAt().format(DATE))
+                .line("Status:   " + invoice.getStatus() + " (payment " + order.getPaymentStatus() + ")")
+                .blank()
+                .line("Bill to:  " + customer.getName() + " <" + customer.getEmail() + ">");
+        if (order.getShippingAddress() != null) {
+            for (String part : wrap(order.getShippingAddress(), 70)) pdf.line("          " + part);
+        }
+
+        pdf.blank()
+                .line(String.format("%-44s %5s %13s %14s", "Item", "Qty", "Unit price", "Amount"))
+                .line("-".repeat(79));
+        for (OrderItem item : order.getItems()) {
+            String name = item.getProductName() != null ? item.getProductName() : "Product #" + item.getProduct().getId();
+            String variant = join(item.getSelectedSize(), item.getSelectedColor());
+            if (!variant.isEmpty()) name += " (" + variant + ")";
+            pdf.line(String.format("%-44s %5d %13s %14s", truncate(name, 44), item.getQuantity(),
+                    money(item.getUnitPrice()), money(item.getTotalPrice())));
+        }
+        pdf.line("-".repeat(79));
+        if (order.getDiscount() != null) pdf.line(String.format("%64s %14s", "Discount", "-" + money(order.getDiscount())));
+        if (order.getTax() != null) pdf.line(String.format("%64s %14s", "Tax", money(order.getTax())));
+        pdf.line(String.format("%64s %14s", "Total (INR)", money(order.getTotalAmount())));
+
+        String folder = invoice.getIssuedAt().format(FOLDER);
+        return new Rendering(invoice.getInvoiceNumber(), folder, pdf);
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount == null ? "" : String.format(Locale.ENGLISH, "%,.2f", amount);
+    }
+
+    private static String join(String size, String color) {
+        if (size == null || size.isBlank()) return color == null ? "" : color;
+        if (color == null || color.isBlank()) return size;
+        return size + ", " + color;
+    }
+
+    private static String truncate(String text, int length) {
+        return text.length() <= length ? text : text.substring(0, length - 3) + "...";
+    }
+
+    private static List<String> wrap(String text, int width) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (String word : text.replaceAll("\\s+", " ").trim().split(" ")) {
+            if (line.length() > 0 && line.length() + 1 + word.length() > width) {
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+            if (line.length() > 0) line.append(' ');
+            line.append(word);
+        }
+        if (line.length() > 0) lines.add(line.toString());
+        return lines;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Rendering {
+        private final String invoiceNumber;
+        private final String folder;
+        private final InvoicePdfWriter pdf;
+
+        private Rendering(String invoiceNumber, String folder, InvoicePdfWriter pdf) {
+            this.invoiceNumber = invoiceNumber;
+            this.folder = folder;
+            this.pdf = pdf;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class InvoiceFile {
+        private final Path path;
+        private final long size;
+        private final String checksum;
+        private final String invoiceNumber;
+    }
+}
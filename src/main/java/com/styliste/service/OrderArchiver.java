@@ -0,0 +1,187 @@
+package com.styliste.service;
+
+import com.styliste.entity.OrderStatus;
+import com.styliste.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Moves finished orders (delivered, cancelled, returned) that nobody has touched for
+// orders.archive.age out of orders/order_items into archived_orders/archived_order_items, so
+// the hot tables only hold recent and open orders. Each chunk is copied and deleted in one
+// transaction; OrderService falls back to the archive for single orders, user history and
+// tracking. Invoices and sales rollups reference orders by id only and are left alone; a
+// foreign key from invoices to orders left over from older schemas (ddl-auto=update never
+// drops one) would delete invoices along with archived orders, so it is dropped first, and
+// archiving stays off while it can't be.
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private static final Set<OrderStatus> FINISHED =
+            EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.RETURNED);
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Re-checks status and age under the row locks, in case the order changed since it was picked
+    private static final String LOCK_SQL =
+            "SELECT id FROM orders WHERE id IN (:ids) AND status IN (:statuses) " +
+            "AND created_at < :before AND (updated_at IS NULL OR updated_at < :before) FOR UPDATE";
+
+    private static final String COPY_ORDERS_SQL =
+            "INSERT INTO archived_orders (id, user_id, status, payment_status, total_amount, discount, tax, " +
+            "tracking_number, shipping_address, created_at, updated_at, archived_at) " +
+            "SELECT id, user_id, status, payment_status, total_amount, discount, tax, " +
+            "tracking_number, shipping_address, created_at, updated_at, :now FROM orders WHERE id IN (:ids)";
+
+    // Items from before the product snapshot backfill get the product's current name
+    private static final String COPY_ITEMS_SQL =
+            "INSERT INTO archived_order_items (id, order_id, product_id, product_name, product_image, product_category, " +
+            "quantity, unit_price, total_price, selected_size, selected_color) " +
+            "SELECT oi.id, oi.order_id, oi.product_id, COALESCE(oi.product_name, p.name), oi.product_image, " +
+            "COALESCE(oi.product_category, p.category), oi.quantity, oi.unit_price, oi.total_price, " +
+            "oi.selected_size, oi.selected_color " +
+            "FROM order_items oi LEFT JOIN products p ON p.id = oi.product_id WHERE oi.order_id IN (:ids)";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+    private final Duration age;
+    private final int chunkSize;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OrderArchiver(@Value("${orders.archive.enabled:true}") boolean enabled,
+                         @Value("${orders.archive.age:180d}") Duration age,
+                         @Value("${orders.archive.chunk-size:500}") int chunkSize,
+                         PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.age = age;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${orders.archive.cron:0 30 3 * * *}")
+    public void archiveScheduled() {
+        if (enabled) archive();
+    }
+
+    // Reports (or clears) a leftover invoice foreign key at startup rather than at the first run
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkInvoiceForeignKeys() {
+        if (enabled) dropInvoiceForeignKeys();
+    }
+
+    // Returns how many orders were moved; 0 if another run is still going or archiving is blocked
+    public int archive() {
+        if (!running.compareAndSet(false, true)) return 0;
+        try {
+            if (!dropInvoiceForeignKeys()) return 0;
+            long startedAt = System.currentTimeMillis();
+            LocalDateTime before = LocalDateTime.now().minus(age);
+            int moved = 0;
+            for (OrderStatus status : FINISHED) {
+                moved += archive(status, before);
+            }
+            if (moved > 0) {
+                log.info("Archived {} orders finished before {} in {} ms", moved, before, System.currentTimeMillis() - startedAt);
+            }
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archive(OrderStatus status, LocalDateTime before) {
+        LocalDateTime afterCreatedAt = START;
+        long afterId = 0;
+        int moved = 0;
+        while (true) {
+            List<Object[]> candidates = orderRepository.findArchivable(status, before, afterCreatedAt, afterId,
+                    PageRequest.of(0, chunkSize));
+            if (candidates.isEmpty()) break;
+
+            List<Long> ids = candidates.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+            Integer count = transactionTemplate.execute(tx -> moveChunk(ids, before));
+            moved += count != null ? count : 0;
+
+            Object[] last = candidates.get(candidates.size() - 1);
+            afterCreatedAt = (LocalDateTime) last[1];
+            afterId = (Long) last[0];
+            if (candidates.size() < chunkSize) break;
+        }
+        return moved;
+    }
+
+    // Package-private so tests can hand it candidates that changed after they were picked
+    int moveChunk(List<Long> candidates, LocalDateTime before) {
+        List<Long> ids = jdbcTemplate.queryForList(LOCK_SQL, new MapSqlParameterSource()
+                .addValue("ids", candidates)
+                .addValue("statuses", FINISHED.stream().map(Enum::name).collect(Collectors.toList()))
+                .addValue("before", Timestamp.valueOf(before)), Long.class);
+        if (ids.isEmpty()) return 0;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        jdbcTemplate.update(COPY_ORDERS_SQL, params);
+        jdbcTemplate.update(COPY_ITEMS_SQL, params);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (:ids)", params);
+        return ids.size();
+    }
+
+    // True once no foreign key from invoices to orders is left
+    private boolean dropInvoiceForeignKeys() {
+        List<String> keys = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<List<String>>) connection -> {
+            List<String> names = new ArrayList<>();
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet imported = metaData.getImportedKeys(connection.getCatalog(), null, "invoices")) {
+                while (imported.next()) {
+                    if ("orders".equalsIgnoreCase(imported.getString("PKTABLE_NAME"))) names.add(imported.getString("FK_NAME"));
+                }
+            }
+            return names;
+        });
+
+        boolean clear = true;
+        for (String key : keys) {
+            try {
+                jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE invoices DROP FOREIGN KEY " + key);
+                log.info("Dropped legacy foreign key {} from invoices.order_id to orders", key);
+            } catch (DataAccessException e) {
+                log.error("invoices.order_id still has foreign key {} to orders, which would delete invoices along with "
+                        + "archived orders. Order archiving is off until it is dropped: "
+                        + "ALTER TABLE invoices DROP FOREIGN KEY {}", key, key, e);
+                clear = false;
+            }
+        }
+        return clear;
+    }
+}
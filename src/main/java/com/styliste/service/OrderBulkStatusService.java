@@ -0,0 +1,356 @@
+package com.styliste.service;
+
+import com.styliste.dto.BulkStatusUpdateResult;
+import com.styliste.dto.BulkStatusUpdateRow;
+import com.styliste.dto.BulkStatusUpdateSummary;
+import com.styliste.entity.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Bulk status / tracking number updates from carrier manifests, as a JSON array or a CSV of
+// orderId,status,trackingNumber. Rows are read and applied a chunk at a time, one transaction
+// per chunk: the chunk's orders are locked and read as scalars, transitions and tracking
+// numbers are checked in memory, and the changes go out as one JDBC batch of UPDATEs. No
+// entities are loaded; statistics, sales rollups and the tracking cache get the same hooks
+// updateOrderStatus calls.
+@Slf4j
+@Service
+public class OrderBulkStatusService {
+
+    private static final int MAX_TRACKING_NUMBER_LENGTH = 50;
+
+    private static final String LOCK_SQL =
+            "SELECT id, status, tracking_number FROM orders WHERE id IN (:ids) FOR UPDATE";
+    private static final String OWNERS_SQL =
+            "SELECT id, tracking_number FROM orders WHERE tracking_number IN (:trackingNumbers)";
+    private static final String UPDATE_SQL =
+            "UPDATE orders SET status = ?, tracking_number = ?, updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderTrackingCache orderTrackingCache;
+
+    private final int chunkSize;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderBulkStatusService(@Value("${orders.bulk-update.chunk-size:500}") int chunkSize,
+                                  PlatformTransactionManager transactionManager) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkStatusUpdateSummary apply(List<BulkStatusUpdateRow> rows) {
+        Iterator<BulkStatusUpdateRow> source = rows.iterator();
+        return apply(new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Line next() {
+                BulkStatusUpdateRow next = source.next();
+                return next == null ? Line.invalid(++row, null, "Empty row")
+                        : Line.parse(++row, next.getOrderId(), next.getStatus(), next.getTrackingNumber());
+            }
+        });
+    }
+
+    // Reads the upload as it goes, so only one chunk of rows is held at a time. An optional
+    // header line is skipped; results refer to CSV line numbers.
+    public BulkStatusUpdateSummary applyCsv(InputStream csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        try {
+            return apply(new CsvLines(reader));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private BulkStatusUpdateSummary apply(Iterator<Line> lines) {
+        long startedAt = System.currentTimeMillis();
+        List<BulkStatusUpdateResult> results = new ArrayList<>();
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        while (lines.hasNext()) {
+            chunk.add(lines.next());
+            if (chunk.size() == chunkSize) {
+                results.addAll(applyChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) results.addAll(applyChunk(chunk));
+
+        Map<String, Long> outcomes = results.stream()
+                .collect(Collectors.groupingBy(BulkStatusUpdateResult::getOutcome, Collectors.counting()));
+        int updated = outcomes.getOrDefault(Outcome.UPDATED.name(), 0L).intValue();
+        int unchanged = outcomes.getOrDefault(Outcome.UNCHANGED.name(), 0L).intValue();
+        log.info("Bulk status update: {} rows, {} updated, {} unchanged, {} failed in {} ms", results.size(),
+                updated, unchanged, results.size() - updated - unchanged, System.currentTimeMillis() - startedAt);
+
+        return BulkStatusUpdateSummary.builder()
+                .total(results.size())
+                .updated(updated)
+                .unchanged(unchanged)
+                .failed(results.size() - updated - unchanged)
+                .rows(results)
+                .build();
+    }
+
+    private List<BulkStatusUpdateResult> applyChunk(List<Line> chunk) {
+        try {
+            return transactionTemplate.execute(status -> applyChunkInTransaction(chunk));
+        } catch (DataAccessException e) {
+            // e.g. a tracking number taken by a concurrent update; nothing in the chunk was applied
+            log.warn("Bulk status update chunk of {} rows rolled back", chunk.size(), e);
+            String message = "Not applied, the chunk was rolled back: " + e.getMostSpecificCause().getMessage();
+            return chunk.stream().map(line -> line.result(Outcome.CONFLICT, message)).collect(Collectors.toList());
+        }
+    }
+
+    private List<BulkStatusUpdateResult> applyChunkInTransaction(List<Line> chunk) {
+        Set<Long> ids = new HashSet<>();
+        Set<String> trackingNumbers = new HashSet<>();
+        for (Line line : chunk) {
+            if (line.error != null) continue;
+            ids.add(line.orderId);
+            if (line.trackingNumber != null) trackingNumbers.add(line.trackingNumber);
+        }
+
+        Map<Long, OrderState> orders = new HashMap<>();
+        if (!ids.isEmpty()) {
+            jdbcTemplate.query(LOCK_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+                orders.put(rs.getLong(1), new OrderState(OrderStatus.valueOf(rs.getString(2)), rs.getString(3)));
+            });
+        }
+        Map<String, Long> owners = new HashMap<>();
+        if (!trackingNumbers.isEmpty()) {
+            jdbcTemplate.query(OWNERS_SQL, new MapSqlParameterSource("trackingNumbers", trackingNumbers), rs -> {
+                owners.put(rs.getString(2), rs.getLong(1));
+            });
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        Map<Long, OrderStatus> previousStatuses = new HashMap<>();
+        List<BulkStatusUpdateResult> results = new ArrayList<>(chunk.size());
+
+        // Rows are checked in order against the state the earlier rows left behind, so an
+        // order may appear more than once in a manifest
+        for (Line line : chunk) {
+            if (line.error != null) {
+                results.add(line.result(Outcome.INVALID, line.error));
+                continue;
+            }
+            OrderState order = orders.get(line.orderId);
+            if (order == null) {
+                results.add(line.result(Outcome.NOT_FOUND, "Order not found"));
+                continue;
+            }
+            if (!order.status.canMoveTo(line.status)) {
+                results.add(line.result(Outcome.INVALID, "Cannot move order from " + order.status + " to " + line.status));
+                continue;
+            }
+            String trackingNumber = line.trackingNumber != null ? line.trackingNumber : order.trackingNumber;
+            Long owner = owners.get(trackingNumber);
+            if (trackingNumber != null && owner != null && !owner.equals(line.orderId)) {
+                results.add(line.result(Outcome.CONFLICT, "Tracking number is already assigned to order " + owner));
+                continue;
+            }
+            if (line.status == order.status && Objects.equals(trackingNumber, order.trackingNumber)) {
+                results.add(line.result(Outcome.UNCHANGED, null));
+                continue;
+            }
+
+            updates.add(new Object[]{line.status.name(), trackingNumber, now, line.orderId});
+            previousStatuses.putIfAbsent(line.orderId, order.status);
+            statisticsService.orderStatusChanged(order.status, line.status);
+            orderTrackingCache.invalidate(order.trackingNumber);
+            orderTrackingCache.invalidate(trackingNumber);
+            if (order.trackingNumber != null && !order.trackingNumber.equals(trackingNumber)) {
+                owners.remove(order.trackingNumber);
+            }
+            if (trackingNumber != null) owners.put(trackingNumber, line.orderId);
+            orders.put(line.orderId, new OrderState(line.status, trackingNumber));
+            results.add(line.result(Outcome.UPDATED, null));
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.getJdbcOperations().batchUpdate(UPDATE_SQL, updates);
+            salesRollupService.orderStatusesChanged(previousStatuses);
+        }
+        return results;
+    }
+
+    private enum Outcome {
+        UPDATED, UNCHANGED, INVALID, NOT_FOUND, CONFLICT
+    }
+
+    private static final class OrderState {
+        private final OrderStatus status;
+        private final String trackingNumber;
+
+        private OrderState(OrderStatus status, String trackingNumber) {
+            this.status = status;
+            this.trackingNumber = trackingNumber;
+        }
+    }
+
+    // One parsed input row; error is set when it can't be applied whatever the order's state
+    private static final class Line {
+        private final int row;
+        private final Long orderId;
+        private final OrderStatus status;
+        private final String trackingNumber;
+        private final String error;
+
+        private Line(int row, Long orderId, OrderStatus status, String trackingNumber, String error) {
+            this.row = row;
+            this.orderId = orderId;
+            this.status = status;
+            this.trackingNumber = trackingNumber;
+            this.error = error;
+        }
+
+        private static Line invalid(int row, Long orderId, String error) {
+            return new Line(row, orderId, null, null, error);
+        }
+
+        private static Line parse(int row, Long orderId, String status, String trackingNumber) {
+            if (orderId == null) return invalid(row, null, "orderId is required");
+            if (status == null || status.isBlank()) return invalid(row, orderId, "status is required");
+
+            OrderStatus parsed;
+            try {
+                parsed = OrderStatus.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return invalid(row, orderId, "Invalid order status: " + status);
+            }
+
+            String tracking = trackingNumber == null || trackingNumber.isBlank() ? null : trackingNumber.trim();
+            if (tracking != null && tracking.length() > MAX_TRACKING_NUMBER_LENGTH) {
+                return invalid(row, orderId, "Tracking number is longer than " + MAX_TRACKING_NUMBER_LENGTH + " characters");
+            }
+            return new Line(row, orderId, parsed, tracking, null);
+        }
+
+        private BulkStatusUpdateResult result(Outcome outcome, String message) {
+            return BulkStatusUpdateResult.builder()
+                    .row(row)
+                    .orderId(orderId)
+                    .outcome(outcome.name())
+                    .message(message)
+                    .build();
+        }
+    }
+
+    // orderId,status[,trackingNumber] per line; fields may be double-quoted. Blank lines are
+    // skipped, and so is a first line that doesn't start with an order id (a header). A UTF-8
+    // byte order mark (Excel puts one in) is dropped first, or it would make any first line
+    // look like a header.
+    private static final class CsvLines implements Iterator<Line> {
+        private final BufferedReader reader;
+        private int lineNumber;
+        private Line next;
+
+        private CsvLines(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = read();
+            return next != null;
+        }
+
+        @Override
+        public Line next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Line line = next;
+            next = null;
+            return line;
+        }
+
+        private Line read() {
+            try {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && text.startsWith("\uFEFF")) text = text.substring(1);
+                    if (text.isBlank()) continue;
+
+                    List<String> fields = split(text);
+                    String id = fields.get(0).trim();
+                    if (lineNumber == 1 && !id.isEmpty() && !Character.isDigit(id.charAt(0))) continue;
+                    if (fields.size() < 2) return Line.invalid(lineNumber, null, "Expected orderId,status[,trackingNumber]");
+
+                    Long orderId;
+                    try {
+                        orderId = Long.valueOf(id);
+                    } catch (NumberFormatException e) {
+                        return Line.invalid(lineNumber, null, "Invalid order id: " + id);
+                    }
+                    return Line.parse(lineNumber, orderId, fields.get(1), fields.size() > 2 ? fields.get(2) : null);
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static List<String> split(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.styliste.service;
+
+import com.styliste.repository.OrderItemRepository;
+import com.styliste.repository.ProductListing;
+import com.styliste.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// One-off migration for order items created before product name/image/category snapshots
+// existed. Items that already have a name and image only get their category filled in.
+// Walks the items without a snapshot in id order, a chunk per transaction, so it never holds
+// locks on much of order_items at once. Once everything is filled in, each start costs one query.
+@Slf4j
+@Component
+public class OrderItemSnapshotBackfill {
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final int chunkSize;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderItemSnapshotBackfill(@Value("${order-items.snapshot-backfill.chunk-size:1000}") int chunkSize,
+                                     PlatformTransactionManager transactionManager) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long afterId = 0;
+        int filled = 0;
+        while (true) {
+            long from = afterId;
+            Chunk chunk = transactionTemplate.execute(status -> fillChunk(from));
+            if (chunk == null || chunk.size == 0) break;
+            filled += chunk.filled;
+            afterId = chunk.lastId;
+            if (chunk.size < chunkSize) break;
+        }
+        if (filled > 0) log.info("Backfilled product snapshots on {} order items", filled);
+    }
+
+    private Chunk fillChunk(long afterId) {
+        List<Object[]> items = orderItemRepository.findMissingSnapshots(afterId, PageRequest.of(0, chunkSize));
+        if (items.isEmpty()) return new Chunk(0, 0, afterId);
+
+        Set<Long> productIds = items.stream().map(row -> (Long) row[1]).collect(Collectors.toSet());
+        Map<Long, ProductListing> products = productRepository.findListingsByIds(productIds).stream()
+                .collect(Collectors.toMap(ProductListing::getId, Function.identity()));
+        // First image listed for each product, same as createOrder takes
+        Map<Long, String> images = new HashMap<>();
+        for (Object[] row : productRepository.findImagesByProductIds(productIds)) {
+            images.putIfAbsent((Long) row[0], (String) row[1]);
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (Object[] item : items) {
+            ProductListing product = products.get((Long) item[1]);
+            if (product != null) {
+                updates.add(new Object[]{images.get(product.getId()), product.getName(), product.getCategory(), item[0]});
+            }
+        }
+        if (!updates.isEmpty()) {
+            // Image first: MySQL evaluates SET left to right, so it must see the old product_name
+            jdbcTemplate.batchUpdate("UPDATE order_items SET " +
+                    "product_image = CASE WHEN product_name IS NULL THEN ? ELSE product_image END, " +
+                    "product_name = COALESCE(product_name, ?), product_category = COALESCE(product_category, ?) " +
+                    "WHERE id = ?", updates);
+        }
+        return new Chunk(items.size(), updates.size(), (Long) items.get(items.size() - 1)[0]);
+    }
+
+    private static final class Chunk {
+        private final int size;
+        private final int filled;
+        private final long lastId;
+
+        private Chunk(int size, int filled, long lastId) {
+            this.size = size;
+            this.filled = filled;
+            this.lastId = lastId;
+        }
+    }
+}
@@ -5,18 +5,28 @@ import com.styliste.entity.*;
 import com.styliste.exception.BadRequestException;
 import com.styliste.exception.ResourceNotFoundException;
 import com.styliste.repository.*;
+import com.styliste.search.ProductSearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,6 +46,30 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderTrackingCache orderTrackingCache;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
     public OrderDTO createOrder(Long userId, CreateOrderRequest request) {
         log.info("Creating order for user: {}", userId);
 
@@ -56,14 +90,31 @@ public class OrderService {
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<OrderItem> orderItems = new java.util.ArrayList<>();
 
-        for (CartItemDTO cartItem : request.getItems()) {
-            Product product = productRepository.findById(cartItem.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Product not found with ID: " + cartItem.getProductId()));
+        // The same product can appear on several lines (e.g. different sizes), so check stock
+        // against the total per product
+        Map<Long, Integer> quantities = StockService.sumQuantities(request.getItems());
+
+        if (request.getReservationId() != null) {
+            // Held stock covers what it can; take only the extra and hand back what's left over
+            Map<Long, Integer> held = reservationService.consume(request.getReservationId(), userId);
+            Map<Long, Integer> extra = new TreeMap<>();
+            quantities.forEach((productId, quantity) -> {
+                int fromReservation = Math.min(quantity, held.getOrDefault(productId, 0));
+                if (quantity > fromReservation) extra.put(productId, quantity - fromReservation);
+                held.merge(productId, -fromReservation, Integer::sum);
+            });
+            stockService.take(extra);
+            stockService.giveBack(held);
+        } else {
+            stockService.take(quantities);
+        }
 
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new BadRequestException("Insufficient stock for product: " + product.getName());
-            }
+        // Names and prices for the order lines; stock on these already includes the decrements
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (CartItemDTO cartItem : request.getItems()) {
+            Product product = products.get(cartItem.getProductId());
 
             BigDecimal effectivePrice = product.getSalePrice() != null ?
                     product.getSalePrice() : product.getPrice();
@@ -72,6 +123,10 @@ public class OrderService {
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
                     .product(product)
+                    .productName(product.getName())
+                    .productImage(product.getImages() == null || product.getImages().isEmpty() ?
+                            null : product.getImages().get(0))
+                    .productCategory(product.getCategory())
                     .quantity(cartItem.getQuantity())
                     .unitPrice(effectivePrice)
                     .totalPrice(itemTotal)
@@ -81,10 +136,6 @@ public class OrderService {
 
             orderItems.add(orderItem);
             totalAmount = totalAmount.add(itemTotal);
-
-            // Reduce stock
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
         }
 
         order.setItems(orderItems);
@@ -92,35 +143,55 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
         log.info("Order created with ID: {}", savedOrder.getId());
+        statisticsService.orderStatusChanged(null, savedOrder.getStatus());
+        salesRollupService.orderCreated(savedOrder);
+        invoiceService.orderCreated(savedOrder);
+
+        // Popularity only counts orders that actually committed
+        Map<Long, Integer> purchased = new HashMap<>();
+        orderItems.forEach(item -> purchased.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum));
+        afterCommit(() -> purchased.forEach(productSearchIndex::recordPurchase));
 
         return mapToDTO(savedOrder);
     }
 
+    // Falls back to the archive for orders OrderArchiver has moved out
     public OrderDTO getOrderById(Long id) {
         log.debug("Fetching order with ID: {}", id);
-        Order order = orderRepository.findById(id)
+        return orderRepository.findWithItemsById(id).map(this::mapToDTO)
+                .or(() -> archivedOrderRepository.findWithItemsById(id).map(this::mapToDTO))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + id));
-        return mapToDTO(order);
     }
 
     public OrderDTO updateOrderStatus(Long id, UpdateOrderStatusRequest request) {
         log.info("Updating order status for ID: {}", id);
 
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findWithItemsAndProductsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + id));
 
+        OrderStatus oldStatus = order.getStatus();
+        String oldTrackingNumber = order.getTrackingNumber();
         try {
             OrderStatus newStatus = OrderStatus.valueOf(request.getStatus().toUpperCase());
             order.setStatus(newStatus);
-
-            if (request.getTrackingNumber() != null) {
-                order.setTrackingNumber(request.getTrackingNumber());
-            }
         } catch (IllegalArgumentException ex) {
             throw new BadRequestException("Invalid order status: " + request.getStatus());
         }
 
+        String trackingNumber = request.getTrackingNumber();
+        if (trackingNumber != null && !trackingNumber.isBlank()) {
+            trackingNumber = trackingNumber.trim();
+            if (orderRepository.existsByTrackingNumberAndIdNot(trackingNumber, id)) {
+                throw new BadRequestException("Tracking number is already assigned to another order: " + trackingNumber);
+            }
+            order.setTrackingNumber(trackingNumber);
+        }
+
         Order updatedOrder = orderRepository.save(order);
+        orderTrackingCache.invalidate(oldTrackingNumber);
+        orderTrackingCache.invalidate(updatedOrder.getTrackingNumber());
+        statisticsService.orderStatusChanged(oldStatus, updatedOrder.getStatus());
+        salesRollupService.orderStatusChanged(updatedOrder, oldStatus);
         log.info("Order status updated successfully");
         return mapToDTO(updatedOrder);
     }
@@ -135,6 +206,7 @@ public class OrderService {
             PaymentStatus status = PaymentStatus.valueOf(paymentStatus.toUpperCase());
             order.setPaymentStatus(status);
             orderRepository.save(order);
+            invoiceService.paymentStatusChanged(order);
         } catch (IllegalArgumentException ex) {
             throw new BadRequestException("Invalid payment status: " + paymentStatus);
         }
@@ -146,15 +218,55 @@ public class OrderService {
         int pageNum = page != null ? page : 0;
         int size = pageSize != null ? pageSize : 10;
 
+        // One page of ids across live and archived orders, then each table's orders by id
         Pageable pageable = PageRequest.of(pageNum, size, Sort.by("createdAt").descending());
-        return orderRepository.findByUserId(userId, pageable).map(this::mapToDTO);
-    }
+        List<Object[]> rows = orderRepository.findHistoryPage(userId, size, pageable.getOffset());
+        List<Long> liveIds = new java.util.ArrayList<>();
+        List<Long> archivedIds = new java.util.ArrayList<>();
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            if (((Number) row[1]).intValue() == 1) archivedIds.add(id);
+            else liveIds.add(id);
+        }
 
-    public List<OrderDTO> getOrdersByStatus(OrderStatus status) {
-        log.debug("Fetching orders by status: {}", status);
-        return orderRepository.findByStatus(status).stream()
-                .map(this::mapToDTO)
+        Map<Long, OrderDTO> byId = new HashMap<>();
+        if (!liveIds.isEmpty()) {
+            orderRepository.findWithItemsByIdIn(liveIds).forEach(order -> byId.put(order.getId(), mapToDTO(order)));
+        }
+        if (!archivedIds.isEmpty()) {
+            archivedOrderRepository.findWithItemsByIdIn(archivedIds).forEach(order -> byId.put(order.getId(), mapToDTO(order)));
+        }
+        List<OrderDTO> content = rows.stream()
+                .map(row -> byId.get(((Number) row[0]).longValue()))
+                .filter(Objects::nonNull) // moved to the archive between the two queries
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, orderRepository.countHistory(userId));
+    }
+
+    // Keyset-paginated and built from projections, so a large backlog in one status costs
+    // the same per request as a small one
+    public CursorPage<OrderDTO> getOrdersByStatus(OrderStatus status, String cursor, Integer pageSize) {
+        log.debug("Fetching orders by status: {} after cursor: {}", status, cursor);
+
+        int size = CursorPage.clampSize(pageSize, 20);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<OrderListing> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findFirstListingsByStatus(status, limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = orderRepository.findListingsByStatusAfter(status, after.sortKeyAsDateTime(), after.getId(), limit);
+        }
+
+        List<Long> orderIds = rows.stream().map(OrderListing::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItemDTO>> items = orderIds.isEmpty() ? Map.of() :
+                orderItemRepository.findListingsByOrderIds(orderIds).stream()
+                        .collect(Collectors.groupingBy(OrderItemListing::getOrderId,
+                                Collectors.mapping(this::mapToItemDTO, Collectors.toList())));
+
+        return CursorPage.fromRows(rows, size, order -> mapToDTO(order, items.getOrDefault(order.getId(), List.of())),
+                order -> PageCursor.encode(order.getCreatedAt(), order.getId()));
     }
 
     public Page<OrderDTO> getAllOrders(Integer page, Integer pageSize) {
@@ -164,29 +276,101 @@ public class OrderService {
         int size = pageSize != null ? pageSize : 10;
 
         Pageable pageable = PageRequest.of(pageNum, size, Sort.by("createdAt").descending());
-        return orderRepository.findAll(pageable).map(this::mapToDTO);
+        Page<Order> orders = orderRepository.findAll(pageable);
+        loadItems(orders.getContent());
+        return orders.map(this::mapToDTO);
+    }
+
+    public CursorPage<OrderDTO> scrollOrders(String cursor, Integer pageSize) {
+        log.debug("Scrolling orders after cursor: {}", cursor);
+
+        int size = CursorPage.clampSize(pageSize, 10);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Order> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findFirstByCreatedAt(limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = orderRepository.findAfterCreatedAt(after.sortKeyAsDateTime(), after.getId(), limit);
+        }
+        loadItems(rows.subList(0, Math.min(size, rows.size())));
+
+        return CursorPage.fromRows(rows, size, this::mapToDTO,
+                order -> PageCursor.encode(order.getCreatedAt(), order.getId()));
     }
 
-    public OrderDTO getOrderByTrackingNumber(String trackingNumber) {
-        log.debug("Fetching order by tracking number: {}", trackingNumber);
-        Order order = orderRepository.findByTrackingNumber(trackingNumber)
+    @Transactional(readOnly = true)
+    public TrackingDTO trackOrder(String trackingNumber) {
+        log.debug("Tracking order by tracking number: {}", trackingNumber);
+        return orderTrackingCache.get(trackingNumber, number -> orderRepository.findTrackingByTrackingNumber(number)
+                        .or(() -> archivedOrderRepository.findTrackingByTrackingNumber(number).stream().findFirst())
+                        .map(this::mapToTrackingDTO))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with tracking number: " + trackingNumber));
-        return mapToDTO(order);
     }
 
     public OrderStatisticsDTO getOrderStatistics() {
         log.debug("Calculating order statistics");
 
-        long totalOrders = orderRepository.count();
-        long pendingOrders = orderRepository.countByStatus(OrderStatus.PENDING);
-        long shippedOrders = orderRepository.countByStatus(OrderStatus.SHIPPED);
-        long deliveredOrders = orderRepository.countByStatus(OrderStatus.DELIVERED);
+        Map<OrderStatus, Long> counts = statisticsService.orderCounts();
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        counts.forEach((status, count) -> byStatus.put(status.name(), count));
 
         return OrderStatisticsDTO.builder()
-                .totalOrders(totalOrders)
-                .pendingOrders(pendingOrders)
-                .shippedOrders(shippedOrders)
-                .deliveredOrders(deliveredOrders)
+                .totalOrders(counts.values().stream().mapToLong(Long::longValue).sum())
+                .pendingOrders(counts.get(OrderStatus.PENDING))
+                .shippedOrders(counts.get(OrderStatus.SHIPPED))
+                .deliveredOrders(counts.get(OrderStatus.DELIVERED))
+                .byStatus(byStatus)
+                .build();
+    }
+
+    // Initializes the items of a page of orders with one query; the
+    // orders are already in the persistence context, so the fetch fills in their collections
+    private void loadItems(List<Order> orders) {
+        if (orders.isEmpty()) return;
+        orderRepository.findWithItemsByIdIn(orders.stream().map(Order::getId).collect(Collectors.toList()));
+    }
+
+    private OrderDTO mapToDTO(OrderListing order, List<OrderItemDTO> items) {
+        return OrderDTO.builder()
+                .id(order.getId())
+                .userId(order.getUserId())
+                .status(order.getStatus().name())
+                .paymentStatus(order.getPaymentStatus().name())
+                .totalAmount(order.getTotalAmount())
+                .discount(order.getDiscount())
+                .tax(order.getTax())
+                .trackingNumber(order.getTrackingNumber())
+                .shippingAddress(order.getShippingAddress())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .items(items)
+                .build();
+    }
+
+    private TrackingDTO mapToTrackingDTO(OrderTracking tracking) {
+        return TrackingDTO.builder()
+                .orderId(tracking.getOrderId())
+                .trackingNumber(tracking.getTrackingNumber())
+                .status(tracking.getStatus().name())
+                .itemCount(tracking.getItemCount())
+                .createdAt(tracking.getCreatedAt())
+                .updatedAt(tracking.getUpdatedAt())
+                .build();
+    }
+
+    private OrderItemDTO mapToItemDTO(OrderItemListing item) {
+        return OrderItemDTO.builder()
+                .id(item.getId())
+                .productId(item.getProductId())
+                .productName(item.getProductName())
+                .productImage(item.getProductImage())
+                .quantity(item.getQuantity())
+                .unitPrice(item.getUnitPrice())
+                .totalPrice(item.getTotalPrice())
+                .selectedSize(item.getSelectedSize())
+                .selectedColor(item.getSelectedColor())
                 .build();
     }
 
@@ -195,7 +379,9 @@ public class OrderService {
                 .map(item -> OrderItemDTO.builder()
                         .id(item.getId())
                         .productId(item.getProduct().getId())
-                        .productName(item.getProduct().getName())
+                        .productName(item.getProductName() != null ?
+                                item.getProductName() : item.getProduct().getName())
+                        .productImage(item.getProductImage())
                         .quantity(item.getQuantity())
                         .unitPrice(item.getUnitPrice())
                         .totalPrice(item.getTotalPrice())
@@ -219,4 +405,48 @@ public class OrderService {
                 .items(items)
                 .build();
     }
+
+    private OrderDTO mapToDTO(ArchivedOrder order) {
+        List<OrderItemDTO> items = order.getItems().stream()
+                .map(item -> OrderItemDTO.builder()
+                        .id(item.getId())
+                        .productId(item.getProductId())
+                        .productName(item.getProductName())
+                        .productImage(item.getProductImage())
+                        .quantity(item.getQuantity())
+                        .unitPrice(item.getUnitPrice())
+                        .totalPrice(item.getTotalPrice())
+                        .selectedSize(item.getSelectedSize())
+                        .selectedColor(item.getSelectedColor())
+                        .build())
+                .collect(Collectors.toList());
+
+        return OrderDTO.builder()
+                .id(order.getId())
+                .userId(order.getUserId())
+                .status(order.getStatus().name())
+                .paymentStatus(order.getPaymentStatus().name())
+                .totalAmount(order.getTotalAmount())
+                .discount(order.getDiscount())
+                .tax(order.getTax())
+                .trackingNumber(order.getTrackingNumber())
+                .shippingAddress(order.getShippingAddress())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .items(items)
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,70 @@
+package com.styliste.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.styliste.dto.CacheStatsDTO;
+import com.styliste.dto.TrackingDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Read-through cache of tracking number -> tracking snapshot for the public tracking endpoint,
+// which customers and carrier integrations poll. Unknown numbers are cached too (as empty) so
+// polling a number that doesn't exist yet doesn't hit the DB every time; OrderService evicts
+// both the old and the new number when it assigns one. The TTL bounds how stale an entry can
+// get from changes made on other instances.
+@Component
+public class OrderTrackingCache {
+
+    private final Cache<String, Optional<TrackingDTO>> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    public OrderTrackingCache(@Value("${cache.tracking.max-size:50000}") long maxSize,
+                              @Value("${cache.tracking.ttl:1m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<TrackingDTO> get(String trackingNumber, Function<String, Optional<TrackingDTO>> loader) {
+        return cache.get(trackingNumber, loader);
+    }
+
+    // Evicts now and again once the surrounding transaction commits, like ProductCache
+    public void invalidate(String trackingNumber) {
+        if (trackingNumber == null) return;
+        cache.invalidate(trackingNumber);
+        invalidations.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(trackingNumber);
+                }
+            });
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsDTO.builder()
+                .name("tracking")
+                .entries(cache.estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+}
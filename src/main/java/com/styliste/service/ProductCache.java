@@ -0,0 +1,104 @@
+package com.styliste.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.styliste.dto.CacheStatsDTO;
+import com.styliste.dto.ProductAttributeDTO;
+import com.styliste.dto.ProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Read-through cache of ProductDTOs by id for the product detail endpoint. Bounded by an
+// estimate of bytes held rather than entry count, since descriptions and media lists vary a lot.
+@Slf4j
+@Component
+public class ProductCache {
+
+    private final Cache<Long, ProductDTO> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    public ProductCache(@Value("${cache.products.max-size-bytes:67108864}") long maxSizeBytes,
+                        @Value("${cache.products.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((Long id, ProductDTO product) -> estimateSize(product))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public ProductDTO get(Long id, Function<Long, ProductDTO> loader) {
+        return cache.get(id, loader);
+    }
+
+    // Evicts now and again once the surrounding transaction commits, so a concurrent reader
+    // can't re-cache the old row between our write and the commit.
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        invalidations.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction()
+                .flatMap(eviction -> eviction.weightedSize().stream().boxed().findFirst())
+                .orElse(0L);
+
+        return CacheStatsDTO.builder()
+                .name("products")
+                .entries(cache.estimatedSize())
+                .weightedSize(weightedSize)
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    // Rough heap footprint: object headers and boxed fields plus two bytes per string char
+    private static int estimateSize(ProductDTO product) {
+        long size = 256;
+        size += stringSize(product.getName());
+        size += stringSize(product.getDescription());
+        size += stringSize(product.getCategory());
+        size += stringSize(product.getSubcategory());
+        size += stringListSize(product.getImages());
+        size += stringListSize(product.getVideos());
+        if (product.getAttributes() != null) {
+            for (ProductAttributeDTO attribute : product.getAttributes()) {
+                size += 32 + stringSize(attribute.getType()) + stringSize(attribute.getValue());
+            }
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long stringSize(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static long stringListSize(List<String> values) {
+        if (values == null) return 0;
+        long size = 32;
+        for (String value : values) size += 8 + stringSize(value);
+        return size;
+    }
+}
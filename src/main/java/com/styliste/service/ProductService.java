@@ -5,17 +5,29 @@ import com.styliste.entity.Product;
 import com.styliste.entity.ProductAttribute;
 import com.styliste.exception.BadRequestException;
 import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.ProductListing;
 import com.styliste.repository.ProductRepository;
+import com.styliste.search.ProductSearchIndex;
+import com.styliste.search.RankedSearchResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,9 +35,27 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductService {
 
+    private static final String RELEVANCE_SORT = "relevance";
+    private static final int MAX_SUGGESTIONS = 3;
+    private static final int DEFAULT_SUGGEST_LIMIT = 8;
+    // Ids per IN (...) when batch-loading collections for a listing
+    private static final int LISTING_BATCH_SIZE = 500;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private HotInventoryService hotInventoryService;
+
     public ProductDTO createProduct(CreateProductRequest request) {
         log.info("Creating product: {}", request.getName());
 
@@ -49,12 +79,18 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        afterCommit(() -> productSearchIndex.index(savedProduct));
+        catalogResponseCache.invalidateAll();
         log.info("Product created with ID: {}", savedProduct.getId());
         return mapToDTO(savedProduct);
     }
 
     public ProductDTO getProductById(Long id) {
         log.debug("Fetching product with ID: {}", id);
+        return productCache.get(id, this::loadProduct);
+    }
+
+    private ProductDTO loadProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         return mapToDTO(product);
@@ -70,7 +106,12 @@ public class ProductService {
         if (request.getDescription() != null) product.setDescription(request.getDescription());
         if (request.getPrice() != null) product.setPrice(request.getPrice());
         if (request.getSalePrice() != null) product.setSalePrice(request.getSalePrice());
-        if (request.getStock() != null) product.setStock(request.getStock());
+        if (request.getStock() != null) {
+            if (Boolean.TRUE.equals(product.getHotInventory())) {
+                throw new BadRequestException("Disable hot inventory before changing stock for product: " + product.getName());
+            }
+            product.setStock(request.getStock());
+        }
         if (request.getCategory() != null) product.setCategory(request.getCategory());
         if (request.getSubcategory() != null) product.setSubcategory(request.getSubcategory());
         if (request.getImages() != null) product.setImages(request.getImages());
@@ -80,6 +121,9 @@ public class ProductService {
         if (request.getIsActive() != null) product.setIsActive(request.getIsActive());
 
         Product updatedProduct = productRepository.save(product);
+        afterCommit(() -> productSearchIndex.index(updatedProduct));
+        productCache.invalidate(id);
+        catalogResponseCache.invalidateAll();
         log.info("Product updated successfully");
         return mapToDTO(updatedProduct);
     }
@@ -91,6 +135,9 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
 
         productRepository.delete(product);
+        afterCommit(() -> productSearchIndex.remove(id));
+        productCache.invalidate(id);
+        catalogResponseCache.invalidateAll();
         log.info("Product deleted successfully");
     }
 
@@ -102,6 +149,9 @@ public class ProductService {
 
         product.setIsActive(false);
         productRepository.save(product);
+        afterCommit(() -> productSearchIndex.remove(id));
+        productCache.invalidate(id);
+        catalogResponseCache.invalidateAll();
         log.info("Product soft deleted successfully");
     }
 
@@ -110,11 +160,54 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
         product.setIsActive(true);
         productRepository.save(product);
+        afterCommit(() -> productSearchIndex.index(product));
+        productCache.invalidate(id);
+        catalogResponseCache.invalidateAll();
+    }
+
+    public void setHotInventory(Long id, boolean enabled) {
+        log.info("{} hot inventory for product {}", enabled ? "Enabling" : "Disabling", id);
+        if (enabled) hotInventoryService.enable(id);
+        else hotInventoryService.disable(id);
+        productCache.invalidate(id);
+        catalogResponseCache.invalidateAll();
     }
 
     public Page<ProductDTO> searchProducts(ProductFilterRequest filterRequest) {
         log.debug("Searching products with filters: {}", filterRequest);
 
+        if (!productSearchIndex.isReady()) {
+            // Index still warming up - plain DB query, no facets or suggestions
+            return runSearch(filterRequest, false);
+        }
+
+        String searchQuery = filterRequest.getSearchQuery();
+        boolean hasQuery = searchQuery != null && !searchQuery.isBlank();
+
+        Page<ProductDTO> results = runSearch(filterRequest, true);
+        if (!hasQuery || results.getTotalElements() > 0) {
+            return new ProductSearchPage(results, null, null, productSearchIndex.facetCounts(filterRequest));
+        }
+
+        // Nothing matched, most likely a typo. Serve the closest known spelling instead of an empty page.
+        List<String> suggestions = productSearchIndex.suggestQueries(searchQuery, MAX_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            return new ProductSearchPage(results, null, null, productSearchIndex.facetCounts(filterRequest));
+        }
+
+        // Retry on a copy so the caller's request stays as it came in
+        ProductFilterRequest correctedRequest = filterRequest.toBuilder().searchQuery(suggestions.get(0)).build();
+        Page<ProductDTO> corrected = runSearch(correctedRequest, true);
+        if (corrected.getTotalElements() == 0) {
+            return new ProductSearchPage(results, suggestions, null, productSearchIndex.facetCounts(filterRequest));
+        }
+
+        log.debug("No results for '{}', showing results for '{}'", searchQuery, suggestions.get(0));
+        return new ProductSearchPage(corrected, suggestions, suggestions.get(0),
+                productSearchIndex.facetCounts(correctedRequest));
+    }
+
+    private Page<ProductDTO> runSearch(ProductFilterRequest filterRequest, boolean indexReady) {
         int page = filterRequest.getPage() != null ? filterRequest.getPage() : 0;
         int pageSize = filterRequest.getPageSize() != null ? filterRequest.getPageSize() : 12;
 
@@ -124,21 +217,92 @@ public class ProductService {
             direction = Sort.Direction.ASC;
         }
 
+        boolean hasQuery = filterRequest.getSearchQuery() != null && !filterRequest.getSearchQuery().isBlank();
+        Map<String, List<String>> attributeFilters = attributeFilters(filterRequest);
+
         String sortBy = filterRequest.getSortBy() != null ? filterRequest.getSortBy() : "createdAt";
+        if (RELEVANCE_SORT.equalsIgnoreCase(sortBy)) {
+            if (indexReady && hasQuery) {
+                return searchByRelevance(filterRequest, page, pageSize);
+            }
+            // Nothing to rank against - fall back to the default ordering
+            sortBy = "createdAt";
+        }
+
         Sort sort = Sort.by(direction, sortBy);
 
         Pageable pageable = PageRequest.of(page, pageSize, sort);
 
-        Page<Product> products = productRepository.searchProducts(
+        if (indexReady && (hasQuery || !attributeFilters.isEmpty())) {
+            // The index filters, sorts and counts; the database only loads the page
+            RankedSearchResult sorted = productSearchIndex.sortedSearch(filterRequest, sortBy,
+                    direction == Sort.Direction.ASC, (int) pageable.getOffset(), pageSize);
+            return loadPage(sorted, pageable);
+        }
+
+        // Index still warming up (or no text or attribute filter) - fall back to the plain DB query,
+        // which checks attribute filters with an EXISTS over product_attributes
+        List<String> attributePairs = new ArrayList<>();
+        attributeFilters.forEach((type, values) -> values.forEach(value -> attributePairs.add(type + "=" + value)));
+        Page<ProductListing> products = productRepository.searchProducts(
                 filterRequest.getCategory(),
                 filterRequest.getSubcategory(),
                 filterRequest.getMinPrice(),
                 filterRequest.getMaxPrice(),
                 filterRequest.getSearchQuery(),
+                attributeFilters.keySet(),
+                attributePairs,
+                attributeFilters.size(),
                 pageable
         );
 
-        return products.map(this::mapToDTO);
+        return toListingPage(products);
+    }
+
+    // Drops attribute types with no usable values so "Size": [] doesn't filter everything out
+    private Map<String, List<String>> attributeFilters(ProductFilterRequest filterRequest) {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        if (filterRequest.getAttributes() == null) return filters;
+
+        filterRequest.getAttributes().forEach((type, values) -> {
+            if (type == null || type.isBlank() || values == null) return;
+            List<String> usable = values.stream()
+                    .filter(value -> value != null && !value.isBlank())
+                    .collect(Collectors.toList());
+            if (!usable.isEmpty()) filters.put(type, usable);
+        });
+        return filters;
+    }
+
+    private Page<ProductDTO> searchByRelevance(ProductFilterRequest filterRequest, int page, int pageSize) {
+        Pageable pageable = PageRequest.of(page, pageSize);
+        RankedSearchResult ranked = productSearchIndex.rankedSearch(
+                filterRequest, (int) pageable.getOffset(), pageSize);
+
+        return loadPage(ranked, pageable);
+    }
+
+    private Page<ProductDTO> loadPage(RankedSearchResult result, Pageable pageable) {
+        if (result.getProductIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.getTotalMatches());
+        }
+
+        // The IN (...) query doesn't keep the order we asked for, so put the page back in index order
+        Map<Long, ProductDTO> productsById = assembleListings(productRepository.findListingsByIds(result.getProductIds()))
+                .stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        List<ProductDTO> content = result.getProductIds().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(content, pageable, result.getTotalMatches());
+    }
+
+    public List<SearchSuggestionDTO> suggest(String query, Integer limit) {
+        log.debug("Autocomplete for: {}", query);
+        if (query == null || query.isBlank()) return List.of();
+        return productSearchIndex.autocomplete(query, limit != null ? limit : DEFAULT_SUGGEST_LIMIT);
     }
 
     public Page<ProductDTO> getAllProducts(Integer page, Integer pageSize) {
@@ -148,20 +312,85 @@ public class ProductService {
         int size = pageSize != null ? pageSize : 12;
 
         Pageable pageable = PageRequest.of(pageNum, size, Sort.by("createdAt").descending());
-        return productRepository.findAll(pageable).map(this::mapToDTO);
+        return toListingPage(productRepository.findAllListings(pageable));
+    }
+
+    public CursorPage<ProductDTO> scrollProducts(String cursor, Integer pageSize) {
+        log.debug("Scrolling products after cursor: {}", cursor);
+
+        int size = CursorPage.clampSize(pageSize, 12);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<ProductListing> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = productRepository.findFirstByCreatedAt(limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = productRepository.findAfterCreatedAt(after.sortKeyAsDateTime(), after.getId(), limit);
+        }
+
+        Map<Long, ProductDTO> productsById = assembleListings(rows).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        return CursorPage.fromRows(rows, size, row -> productsById.get(row.getId()),
+                row -> PageCursor.encode(row.getCreatedAt(), row.getId()));
     }
 
     public List<ProductDTO> getProductsByCategory(String category) {
         log.debug("Fetching products by category: {}", category);
-        return productRepository.findByCategory(category).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return assembleListings(productRepository.findListingsByCategory(category));
     }
 
     public List<ProductDTO> getProductsBySubcategory(String subcategory) {
         log.debug("Fetching products by subcategory: {}", subcategory);
-        return productRepository.findBySubcategory(subcategory).stream()
-                .map(this::mapToDTO)
+        return assembleListings(productRepository.findListingsBySubcategory(subcategory));
+    }
+
+    private Page<ProductDTO> toListingPage(Page<ProductListing> listings) {
+        return new PageImpl<>(assembleListings(listings.getContent()), listings.getPageable(),
+                listings.getTotalElements());
+    }
+
+    // Loading Product entities for a list pulls the three EAGER collections row by row. Instead take
+    // the scalar rows and fetch each collection once for the whole batch with IN (...).
+    private List<ProductDTO> assembleListings(List<ProductListing> listings) {
+        if (listings.isEmpty()) return new ArrayList<>();
+
+        Map<Long, List<String>> images = new HashMap<>();
+        Map<Long, List<String>> videos = new HashMap<>();
+        Map<Long, List<ProductAttributeDTO>> attributes = new HashMap<>();
+
+        List<Long> ids = listings.stream().map(ProductListing::getId).collect(Collectors.toList());
+        for (int from = 0; from < ids.size(); from += LISTING_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LISTING_BATCH_SIZE, ids.size()));
+
+            for (Object[] row : productRepository.findImagesByProductIds(batch)) {
+                images.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+            for (Object[] row : productRepository.findVideosByProductIds(batch)) {
+                videos.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+            for (Object[] row : productRepository.findAttributesByProductIds(batch)) {
+                attributes.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                        .add(ProductAttributeDTO.builder().type((String) row[1]).value((String) row[2]).build());
+            }
+        }
+
+        return listings.stream()
+                .map(listing -> ProductDTO.builder()
+                        .id(listing.getId())
+                        .name(listing.getName())
+                        .description(listing.getDescription())
+                        .price(listing.getPrice())
+                        .salePrice(listing.getSalePrice())
+                        .stock(listing.getStock())
+                        .category(listing.getCategory())
+                        .subcategory(listing.getSubcategory())
+                        .images(images.getOrDefault(listing.getId(), new ArrayList<>()))
+                        .videos(videos.getOrDefault(listing.getId(), new ArrayList<>()))
+                        .attributes(attributes.getOrDefault(listing.getId(), new ArrayList<>()))
+                        .isActive(listing.getIsActive())
+                        .hotInventory(listing.getHotInventory())
+                        .build())
                 .collect(Collectors.toList());
     }
 
@@ -179,6 +408,7 @@ public class ProductService {
                 .videos(product.getVideos())
                 .attributes(mapEntitiesToAttributeDTOs(product.getAttributes()))
                 .isActive(product.getIsActive())
+                .hotInventory(product.getHotInventory())
                 .build();
     }
 
@@ -198,4 +428,18 @@ public class ProductService {
                 .map(dto -> new ProductAttribute(dto.getType(), dto.getValue()))
                 .collect(Collectors.toList());
     }
+
+    // The search index is in memory and not transactional, so it only sees committed writes
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
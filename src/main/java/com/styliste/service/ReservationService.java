@@ -0,0 +1,212 @@
+package com.styliste.service;
+
+import com.styliste.dto.CreateReservationRequest;
+import com.styliste.dto.ReservationDTO;
+import com.styliste.entity.ReservationLine;
+import com.styliste.entity.ReservationStatus;
+import com.styliste.entity.StockReservation;
+import com.styliste.exception.BadRequestException;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.StockReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Holds stock between "proceed to checkout" and placing the order. The stock is taken up
+// front; pending expiries sit in an in-memory timing wheel, so a tick costs nothing in the DB
+// however many carts are open. Due reservations are released in batches, one transaction and
+// one stock update per product per batch.
+@Slf4j
+@Service
+@Transactional
+public class ReservationService {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 3; // 64^3 ticks, about three days at one-second ticks
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    private final Duration ttl;
+    private final int releaseBatchSize;
+    private final long tickMillis;
+    private final TimingWheel<String> expiries;
+    private final TransactionTemplate releaseTransaction;
+
+    public ReservationService(@Value("${reservations.ttl:15m}") Duration ttl,
+                              @Value("${reservations.release-batch-size:200}") int releaseBatchSize,
+                              @Value("${reservations.tick-ms:1000}") long tickMillis,
+                              PlatformTransactionManager transactionManager) {
+        this.ttl = ttl;
+        this.releaseBatchSize = Math.max(1, releaseBatchSize);
+        this.tickMillis = tickMillis;
+        this.expiries = new TimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        this.releaseTransaction = new TransactionTemplate(transactionManager);
+        this.releaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Re-arm timers for reservations that were open when the app stopped (overdue ones fire on the first tick)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveReservations() {
+        List<StockReservation> active = reservationRepository.findByStatus(ReservationStatus.ACTIVE);
+        synchronized (expiries) {
+            active.forEach(reservation -> expiries.schedule(reservation.getId(), toMillis(reservation.getExpiresAt())));
+        }
+        if (!active.isEmpty()) log.info("Re-armed {} active stock reservations", active.size());
+    }
+
+    public ReservationDTO createReservation(Long userId, CreateReservationRequest request) {
+        Map<Long, Integer> quantities = StockService.sumQuantities(request.getItems());
+        stockService.take(quantities);
+
+        StockReservation reservation = StockReservation.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .status(ReservationStatus.ACTIVE)
+                .lines(quantities.entrySet().stream()
+                        .map(entry -> new ReservationLine(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList()))
+                .expiresAt(LocalDateTime.now().plus(ttl))
+                .build();
+        StockReservation saved = reservationRepository.save(reservation);
+
+        long deadline = toMillis(saved.getExpiresAt());
+        afterCommit(() -> {
+            synchronized (expiries) {
+                expiries.schedule(saved.getId(), deadline);
+            }
+        });
+        log.info("Reserved {} for user {} until {}", quantities, userId, saved.getExpiresAt());
+        return mapToDTO(saved);
+    }
+
+    public ReservationDTO getReservation(String id, Long userId) {
+        return mapToDTO(findOwned(reservationRepository.findById(id), id, userId));
+    }
+
+    public void releaseReservation(String id, Long userId) {
+        StockReservation reservation = findOwned(reservationRepository.findByIdForUpdate(id), id, userId);
+        if (reservation.getStatus() != ReservationStatus.ACTIVE) return;
+
+        reservation.setStatus(ReservationStatus.RELEASED);
+        stockService.giveBack(quantitiesOf(reservation));
+        afterCommit(() -> cancelTimer(id));
+        log.info("Reservation {} released by user {}", id, userId);
+    }
+
+    // Checkout: marks the reservation used and returns the quantities it holds, which are
+    // already off the shelf
+    public Map<Long, Integer> consume(String id, Long userId) {
+        StockReservation reservation = findOwned(reservationRepository.findByIdForUpdate(id), id, userId);
+        if (reservation.getStatus() != ReservationStatus.ACTIVE) {
+            throw new BadRequestException("Reservation is no longer active: " + id);
+        }
+        if (reservation.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadRequestException("Reservation has expired: " + id);
+        }
+
+        reservation.setStatus(ReservationStatus.CONSUMED);
+        afterCommit(() -> cancelTimer(id));
+        return quantitiesOf(reservation);
+    }
+
+    @Scheduled(fixedDelayString = "${reservations.tick-ms:1000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expireDue() {
+        List<String> due;
+        synchronized (expiries) {
+            due = expiries.advance(System.currentTimeMillis());
+        }
+
+        for (int from = 0; from < due.size(); from += releaseBatchSize) {
+            List<String> batch = due.subList(from, Math.min(from + releaseBatchSize, due.size()));
+            try {
+                releaseTransaction.executeWithoutResult(status -> expireBatch(batch));
+            } catch (RuntimeException e) {
+                log.error("Failed to release {} expired reservations, retrying next tick", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + tickMillis;
+                synchronized (expiries) {
+                    batch.forEach(id -> expiries.schedule(id, retryAt));
+                }
+            }
+        }
+    }
+
+    private void expireBatch(List<String> ids) {
+        // Anything consumed or released in the meantime is skipped by the status filter
+        List<StockReservation> expired = reservationRepository.findByIdInAndStatusForUpdate(ids, ReservationStatus.ACTIVE);
+        if (expired.isEmpty()) return;
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservation reservation : expired) {
+            reservation.setStatus(ReservationStatus.EXPIRED);
+            quantitiesOf(reservation).forEach((productId, quantity) -> quantities.merge(productId, quantity, Integer::sum));
+        }
+        stockService.giveBack(quantities);
+        log.info("Expired {} stock reservations, returned {}", expired.size(), quantities);
+    }
+
+    private StockReservation findOwned(Optional<StockReservation> found, String id, Long userId) {
+        // Someone else's reservation looks the same as a missing one
+        return found.filter(reservation -> reservation.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with ID: " + id));
+    }
+
+    private void cancelTimer(String id) {
+        synchronized (expiries) {
+            expiries.cancel(id);
+        }
+    }
+
+    private static Map<Long, Integer> quantitiesOf(StockReservation reservation) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        reservation.getLines().forEach(line -> quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+        return quantities;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private ReservationDTO mapToDTO(StockReservation reservation) {
+        return ReservationDTO.builder()
+                .id(reservation.getId())
+                .status(reservation.getStatus().toString())
+                .quantities(quantitiesOf(reservation))
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+}
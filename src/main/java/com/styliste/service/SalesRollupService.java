@@ -0,0 +1,422 @@
+package com.styliste.service;
+
+import com.styliste.dto.SalesRollupDTO;
+import com.styliste.entity.Order;
+import com.styliste.entity.OrderItem;
+import com.styliste.entity.OrderStatus;
+import com.styliste.entity.SalesRollupId;
+import com.styliste.entity.SalesRollupType;
+import com.styliste.exception.BadRequestException;
+import com.styliste.repository.ProductListing;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.SalesRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keeps the sales_rollups table up to date so sales reports never scan orders/order_items.
+// OrderService reports new orders and status changes here; once they commit, their
+// contributions are added to in-memory deltas that are written back as one batch of upserts
+// every rollups.flush-interval-ms, so checkouts don't all contend on the current hour's row.
+// Deltas not yet flushed are lost if the process dies; a backfill rebuilds the table from
+// the orders themselves (history is split into id ranges aggregated in parallel).
+// CATEGORY_DAILY uses the category snapshot on each order item, falling back to the
+// product's current category for items placed before snapshots existed.
+@Slf4j
+@Service
+public class SalesRollupService {
+
+    // Not counted as sales; they still show up in STATUS_DAILY
+    private static final Set<OrderStatus> NOT_SOLD = EnumSet.of(OrderStatus.CANCELLED, OrderStatus.RETURNED);
+
+    // MySQL upsert, also understood by H2 in MySQL mode
+    private static final String UPSERT_SQL =
+            "INSERT INTO sales_rollups (type, bucket_start, dimension_key, order_count, units, revenue) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "units = units + VALUES(units), revenue = revenue + VALUES(revenue)";
+
+    // Archived orders keep their ids, so one id range covers both tables
+    private static final String CHUNK_SQL =
+            "SELECT o.id, o.created_at, o.status, o.total_amount, oi.product_id, COALESCE(oi.product_category, p.category), oi.quantity, oi.total_price " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id LEFT JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.id BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT o.id, o.created_at, o.status, o.total_amount, oi.product_id, COALESCE(oi.product_category, p.category), oi.quantity, oi.total_price " +
+            "FROM archived_orders o JOIN archived_order_items oi ON oi.order_id = o.id LEFT JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.id BETWEEN ? AND ? ORDER BY 1";
+
+    private static final String ID_RANGE_SQL =
+            "SELECT MIN(lo), MAX(hi) FROM (SELECT MIN(id) AS lo, MAX(id) AS hi FROM orders " +
+            "UNION ALL SELECT MIN(id), MAX(id) FROM archived_orders) r";
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<SalesRollupId, Totals> pending = new ConcurrentHashMap<>();
+    // Held by flushes and for the whole of a backfill, which replaces the table
+    private final ReentrantLock tableLock = new ReentrantLock();
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+    private final TransactionTemplate writeBehind;
+    private final int chunkSize;
+    private final int backfillThreads;
+
+    public SalesRollupService(@Value("${rollups.backfill.chunk-size:5000}") int chunkSize,
+                              @Value("${rollups.backfill.threads:4}") int backfillThreads,
+                              PlatformTransactionManager transactionManager) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.backfillThreads = Math.max(1, backfillThreads);
+        this.writeBehind = new TransactionTemplate(transactionManager);
+        this.writeBehind.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void orderCreated(Order order) {
+        Map<SalesRollupId, Totals> deltas = new HashMap<>();
+        contribute(deltas, OrderFacts.of(order), order.getStatus(), 1);
+        afterCommit(() -> deltas.forEach(this::addPending));
+    }
+
+    public void orderStatusChanged(Order order, OrderStatus from) {
+        if (from == order.getStatus()) return;
+        Map<SalesRollupId, Totals> deltas = new HashMap<>();
+        OrderFacts facts = OrderFacts.of(order);
+        contribute(deltas, facts, from, -1);
+        contribute(deltas, facts, order.getStatus(), 1);
+        afterCommit(() -> deltas.forEach(this::addPending));
+    }
+
+    // Bulk status updates: order id -> status before the update. Called in the updating
+    // transaction, after the UPDATEs, so the orders read back already have their new status.
+    public void orderStatusesChanged(Map<Long, OrderStatus> previousStatuses) {
+        if (previousStatuses.isEmpty()) return;
+        String sql = "SELECT o.id, o.created_at, o.status, o.total_amount, oi.product_id, COALESCE(oi.product_category, p.category), oi.quantity, oi.total_price " +
+                "FROM orders o JOIN order_items oi ON oi.order_id = o.id LEFT JOIN products p ON p.id = oi.product_id " +
+                "WHERE o.id IN (" + String.join(",", Collections.nCopies(previousStatuses.size(), "?")) + ") ORDER BY o.id";
+
+        Map<SalesRollupId, Totals> deltas = new HashMap<>();
+        jdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> readOrders(rs, (orderId, facts, status) -> {
+            OrderStatus from = previousStatuses.get(orderId);
+            if (from == null || from == status) return;
+            contribute(deltas, facts, from, -1);
+            contribute(deltas, facts, status, 1);
+        }), previousStatuses.keySet().toArray());
+        afterCommit(() -> deltas.forEach(this::addPending));
+    }
+
+    // Hourly or daily revenue for the days from..to (inclusive)
+    public List<SalesRollupDTO> getRevenue(SalesRollupType type, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return salesRollupRepository.findBuckets(type, from.atStartOfDay(), to.plusDays(1).atStartOfDay()).stream()
+                .map(rollup -> SalesRollupDTO.builder()
+                        .bucketStart(rollup.getId().getBucketStart())
+                        .orders(rollup.getOrderCount())
+                        .units(rollup.getUnits())
+                        .revenue(rollup.getRevenue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // Totals per product, category or status over the days from..to (inclusive), highest revenue first
+    public List<SalesRollupDTO> getBreakdown(SalesRollupType type, LocalDate from, LocalDate to, int limit) {
+        checkRange(from, to);
+        List<SalesRollupDTO> rows = salesRollupRepository
+                .sumByDimension(type, from.atStartOfDay(), to.plusDays(1).atStartOfDay()).stream()
+                .limit(Math.max(1, limit))
+                .map(row -> SalesRollupDTO.builder()
+                        .key((String) row[0])
+                        .orders(((Number) row[1]).longValue())
+                        .units(((Number) row[2]).longValue())
+                        .revenue((BigDecimal) row[3])
+                        .build())
+                .collect(Collectors.toList());
+
+        if (type == SalesRollupType.PRODUCT_DAILY && !rows.isEmpty()) {
+            Map<Long, String> names = productRepository.findListingsByIds(rows.stream()
+                            .map(row -> Long.valueOf(row.getKey()))
+                            .collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(ProductListing::getId, ProductListing::getName));
+            rows.forEach(row -> row.setLabel(names.get(Long.valueOf(row.getKey()))));
+        }
+        return rows;
+    }
+
+    @Scheduled(fixedDelayString = "${rollups.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty() || !tableLock.tryLock()) return;
+        try {
+            Map<SalesRollupId, Totals> batch = new HashMap<>();
+            for (SalesRollupId key : pending.keySet()) {
+                Totals totals = pending.remove(key);
+                if (totals != null && !totals.isZero()) batch.put(key, totals);
+            }
+            if (batch.isEmpty()) return;
+            try {
+                writeBehind.executeWithoutResult(status -> upsert(batch));
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} sales rollup deltas, will retry", batch.size(), e);
+                batch.forEach(this::addPending);
+            }
+        } finally {
+            tableLock.unlock();
+        }
+    }
+
+    // First start with existing orders: build the rollups from history
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (salesRollupRepository.count() == 0 && jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class) > 0) {
+            startBackfill();
+        }
+    }
+
+    // Rebuilds sales_rollups from orders and archived_orders in the background. Status changes
+    // made while it runs may be counted twice or not at all; run it when the shop is quiet.
+    public void startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            throw new BadRequestException("A sales rollup backfill is already running");
+        }
+        Thread runner = new Thread(() -> {
+            try {
+                backfill();
+            } finally {
+                backfillRunning.set(false);
+            }
+        }, "sales-rollup-backfill");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    public boolean isBackfillRunning() {
+        return backfillRunning.get();
+    }
+
+    void backfill() {
+        tableLock.lock();
+        ExecutorService workers = Executors.newFixedThreadPool(backfillThreads);
+        try {
+            long startedAt = System.currentTimeMillis();
+            Long[] range = jdbcTemplate.queryForObject(ID_RANGE_SQL, (rs, row) ->
+                    new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+            Long minId = range[0];
+            Long maxId = range[1];
+
+            // Orders from before the cutoff are all in the scan; deltas already pending for them
+            // would be counted twice
+            pending.clear();
+
+            List<Future<Map<SalesRollupId, Totals>>> chunks = new ArrayList<>();
+            if (minId != null) {
+                for (long from = minId; from <= maxId; from += chunkSize) {
+                    long first = from;
+                    long last = Math.min(maxId, from + chunkSize - 1);
+                    chunks.add(workers.submit(() -> aggregateChunk(first, last)));
+                }
+            }
+
+            Map<SalesRollupId, Totals> rollups = new HashMap<>();
+            for (Future<Map<SalesRollupId, Totals>> chunk : chunks) {
+                chunk.get().forEach((key, totals) -> rollups.merge(key, totals, Totals::plus));
+            }
+            rollups.values().removeIf(Totals::isZero);
+
+            writeBehind.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM sales_rollups");
+                upsert(rollups);
+            });
+            log.info("Sales rollups rebuilt: {} rows from {} chunks of orders in {} ms",
+                    rollups.size(), chunks.size(), System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Sales rollup backfill interrupted");
+        } catch (Exception e) {
+            log.error("Sales rollup backfill failed", e);
+        } finally {
+            workers.shutdownNow();
+            tableLock.unlock();
+        }
+    }
+
+    private Map<SalesRollupId, Totals> aggregateChunk(long firstId, long lastId) {
+        Map<SalesRollupId, Totals> totals = new HashMap<>();
+        jdbcTemplate.query(CHUNK_SQL, (ResultSetExtractor<Void>) rs -> readOrders(rs,
+                (orderId, facts, status) -> contribute(totals, facts, status, 1)), firstId, lastId, firstId, lastId);
+        return totals;
+    }
+
+    // Walks rows of (id, created_at, status, total_amount, product_id, category, quantity,
+    // total_price) ordered by order id, one visit per order
+    private static Void readOrders(ResultSet rs, OrderVisitor visitor) throws SQLException {
+        long currentId = -1;
+        OrderFacts current = null;
+        OrderStatus currentStatus = null;
+        while (rs.next()) {
+            long orderId = rs.getLong(1);
+            if (orderId != currentId) {
+                if (current != null) visitor.visit(currentId, current, currentStatus);
+                currentId = orderId;
+                current = new OrderFacts(rs.getTimestamp(2).toLocalDateTime(), rs.getBigDecimal(4), new ArrayList<>());
+                currentStatus = OrderStatus.valueOf(rs.getString(3));
+            }
+            current.lines.add(new OrderLine(rs.getLong(5), rs.getString(6), rs.getInt(7), rs.getBigDecimal(8)));
+        }
+        if (current != null) visitor.visit(currentId, current, currentStatus);
+        return null;
+    }
+
+    // Adds (sign = 1) or removes (sign = -1) one order's share of every rollup it belongs to
+    private static void contribute(Map<SalesRollupId, Totals> into, OrderFacts order, OrderStatus status, int sign) {
+        LocalDateTime day = order.createdAt.truncatedTo(ChronoUnit.DAYS);
+        long units = order.lines.stream().mapToLong(line -> line.quantity).sum();
+        Totals orderTotals = new Totals(1, units, order.totalAmount).times(sign);
+
+        into.merge(new SalesRollupId(SalesRollupType.STATUS_DAILY, day, status.name()), orderTotals, Totals::plus);
+        if (NOT_SOLD.contains(status)) return;
+
+        into.merge(new SalesRollupId(SalesRollupType.HOURLY, order.createdAt.truncatedTo(ChronoUnit.HOURS), ""),
+                orderTotals, Totals::plus);
+        into.merge(new SalesRollupId(SalesRollupType.DAILY, day, ""), orderTotals, Totals::plus);
+        addLines(into, SalesRollupType.PRODUCT_DAILY, day, order.lines, line -> String.valueOf(line.productId), sign);
+        addLines(into, SalesRollupType.CATEGORY_DAILY, day, order.lines,
+                line -> line.category != null ? line.category : "", sign);
+    }
+
+    // The same product (or category) can be on several lines of one order, but it's still one order
+    private static void addLines(Map<SalesRollupId, Totals> into, SalesRollupType type, LocalDateTime day,
+                                 List<OrderLine> lines, Function<OrderLine, String> key, int sign) {
+        Map<String, Totals> perKey = new HashMap<>();
+        for (OrderLine line : lines) {
+            perKey.merge(key.apply(line), new Totals(0, line.quantity, line.totalPrice), Totals::plus);
+        }
+        perKey.forEach((dimension, totals) -> into.merge(new SalesRollupId(type, day, dimension),
+                new Totals(1, totals.units, totals.revenue).times(sign), Totals::plus));
+    }
+
+    private void upsert(Map<SalesRollupId, Totals> rows) {
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        rows.forEach((key, totals) -> batch.add(new Object[]{key.getType().name(), Timestamp.valueOf(key.getBucketStart()),
+                key.getDimensionKey(), totals.orders, totals.units, totals.revenue}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+
+    private void addPending(SalesRollupId key, Totals totals) {
+        pending.merge(key, totals, Totals::plus);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private interface OrderVisitor {
+        void visit(long orderId, OrderFacts facts, OrderStatus status);
+    }
+
+    private static final class OrderFacts {
+        private final LocalDateTime createdAt;
+        private final BigDecimal totalAmount;
+        private final List<OrderLine> lines;
+
+        private OrderFacts(LocalDateTime createdAt, BigDecimal totalAmount, List<OrderLine> lines) {
+            this.createdAt = createdAt;
+            this.totalAmount = totalAmount;
+            this.lines = lines;
+        }
+
+        private static OrderFacts of(Order order) {
+            List<OrderLine> lines = new ArrayList<>();
+            for (OrderItem item : order.getItems()) {
+                String category = item.getProductCategory() != null
+                        ? item.getProductCategory() : item.getProduct().getCategory();
+                lines.add(new OrderLine(item.getProduct().getId(), category, item.getQuantity(), item.getTotalPrice()));
+            }
+            return new OrderFacts(order.getCreatedAt(), order.getTotalAmount(), lines);
+        }
+    }
+
+    private static final class OrderLine {
+        private final long productId;
+        private final String category;
+        private final int quantity;
+        private final BigDecimal totalPrice;
+
+        private OrderLine(long productId, String category, int quantity, BigDecimal totalPrice) {
+            this.productId = productId;
+            this.category = category;
+            this.quantity = quantity;
+            this.totalPrice = totalPrice;
+        }
+    }
+
+    private static final class Totals {
+        private final long orders;
+        private final long units;
+        private final BigDecimal revenue;
+
+        private Totals(long orders, long units, BigDecimal revenue) {
+            this.orders = orders;
+            this.units = units;
+            this.revenue = revenue != null ? revenue : BigDecimal.ZERO;
+        }
+
+        private Totals plus(Totals other) {
+            return new Totals(orders + other.orders, units + other.units, revenue.add(other.revenue));
+        }
+
+        private Totals times(int sign) {
+            return sign == 1 ? this : new Totals(-orders, -units, revenue.negate());
+        }
+
+        private boolean isZero() {
+            return orders == 0 && units == 0 && revenue.signum() == 0;
+        }
+    }
+}
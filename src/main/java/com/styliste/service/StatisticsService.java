@@ -0,0 +1,157 @@
+package com.styliste.service;
+
+import com.styliste.entity.AppointmentStatus;
+import com.styliste.entity.OrderStatus;
+import com.styliste.repository.AppointmentRepository;
+import com.styliste.repository.ArchivedOrderRepository;
+import com.styliste.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per-status counts for the order and appointment dashboards. By default each read is one
+// GROUP BY status query. With statistics.in-memory-counters=true the counts are kept in memory
+// instead: the services report status changes here and the counters move once the change
+// commits, so reads don't touch the DB. The counters are per JVM and only see changes made
+// through this instance, so they're re-read from the DB every statistics.reconcile-interval-ms.
+// Order counts cover archived_orders too; archiving moves an order without changing its status.
+@Slf4j
+@Service
+public class StatisticsService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private final boolean inMemory;
+    private final TransactionTemplate readOnly;
+    private final StatusCounts<OrderStatus> orders = new StatusCounts<>(OrderStatus.class);
+    private final StatusCounts<AppointmentStatus> appointments = new StatusCounts<>(AppointmentStatus.class);
+
+    // Until the first reconcile finishes, reads go to the DB
+    private volatile boolean loaded;
+
+    public StatisticsService(@Value("${statistics.in-memory-counters:false}") boolean inMemory,
+                             PlatformTransactionManager transactionManager) {
+        this.inMemory = inMemory;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public Map<OrderStatus, Long> orderCounts() {
+        if (inMemory && loaded) return orders.snapshot();
+        return orders.fromRows(orderRows());
+    }
+
+    public Map<AppointmentStatus, Long> appointmentCounts() {
+        if (inMemory && loaded) return appointments.snapshot();
+        return appointments.fromRows(appointmentRepository.countGroupedByStatus());
+    }
+
+    // from is null for a newly created row
+    public void orderStatusChanged(OrderStatus from, OrderStatus to) {
+        if (inMemory && from != to) afterCommit(() -> orders.move(from, to));
+    }
+
+    public void appointmentStatusChanged(AppointmentStatus from, AppointmentStatus to) {
+        if (inMemory && from != to) afterCommit(() -> appointments.move(from, to));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${statistics.reconcile-interval-ms:300000}",
+            initialDelayString = "${statistics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!inMemory) return;
+
+        readOnly.executeWithoutResult(status -> {
+            long orderDrift = orders.reset(orders.fromRows(orderRows()));
+            long appointmentDrift = appointments.reset(appointments.fromRows(appointmentRepository.countGroupedByStatus()));
+            if (loaded && (orderDrift != 0 || appointmentDrift != 0)) {
+                log.info("Statistics counters reconciled (orders off by {}, appointments off by {})",
+                        orderDrift, appointmentDrift);
+            }
+        });
+        loaded = true;
+    }
+
+    private List<Object[]> orderRows() {
+        List<Object[]> rows = new ArrayList<>(orderRepository.countGroupedByStatus());
+        rows.addAll(archivedOrderRepository.countGroupedByStatus());
+        return rows;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // One counter per enum constant, indexed by ordinal
+    private static final class StatusCounts<S extends Enum<S>> {
+        private final Class<S> type;
+        private final S[] statuses;
+        private final AtomicLongArray counts;
+
+        private StatusCounts(Class<S> type) {
+            this.type = type;
+            this.statuses = type.getEnumConstants();
+            this.counts = new AtomicLongArray(statuses.length);
+        }
+
+        private void move(S from, S to) {
+            if (from != null) counts.decrementAndGet(from.ordinal());
+            if (to != null) counts.incrementAndGet(to.ordinal());
+        }
+
+        private Map<S, Long> snapshot() {
+            Map<S, Long> snapshot = new EnumMap<>(type);
+            for (S status : statuses) snapshot.put(status, counts.get(status.ordinal()));
+            return snapshot;
+        }
+
+        // Rows of (status, count) from GROUP BY queries; statuses with no rows count as 0
+        private Map<S, Long> fromRows(List<Object[]> rows) {
+            Map<S, Long> result = new EnumMap<>(type);
+            for (S status : statuses) result.put(status, 0L);
+            for (Object[] row : rows) {
+                if (row[0] != null) result.merge(type.cast(row[0]), ((Number) row[1]).longValue(), Long::sum);
+            }
+            return result;
+        }
+
+        // Overwrites the counters, returns the total absolute difference to what they held
+        private long reset(Map<S, Long> actual) {
+            long drift = 0;
+            for (S status : statuses) {
+                drift += Math.abs(counts.getAndSet(status.ordinal(), actual.get(status)) - actual.get(status));
+            }
+            return drift;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.entity.Product;
+import com.styliste.exception.BadRequestException;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Takes and returns product stock for orders and checkout reservations. Hot (flash-sale)
+// products go through HotInventoryService's counters, everything else through products.stock.
+@Slf4j
+@Service
+@Transactional
+public class StockService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private HotInventoryService hotInventoryService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // All or nothing: throwing rolls back the products already taken. Ascending id order keeps
+    // transactions that share products from deadlocking on the row locks.
+    public void take(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        new TreeMap<>(quantities).forEach(this::take);
+    }
+
+    // Returns stock in bulk: hot products back to their counters, the rest as one JDBC batch
+    public void giveBack(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        List<Object[]> updates = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            if (quantity <= 0 || hotInventoryService.giveBack(productId, quantity)) return;
+            updates.add(new Object[]{quantity, now, productId});
+        });
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE products SET stock = stock + ?, updated_at = ? WHERE id = ?", updates);
+            updates.forEach(update -> productCache.invalidate((Long) update[2]));
+        }
+    }
+
+    static Map<Long, Integer> sumQuantities(List<CartItemDTO> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItemDTO item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // One conditional UPDATE for regular products, no read beforehand
+    private void take(Long productId, int quantity) {
+        HotInventoryService.Outcome outcome = hotInventoryService.tryReserve(productId, quantity);
+        if (outcome == HotInventoryService.Outcome.RESERVED) return;
+
+        if (outcome == HotInventoryService.Outcome.NOT_HOT && productRepository.decrementStock(productId, quantity) > 0) {
+            productCache.invalidate(productId);
+            return;
+        }
+
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
+        if (outcome == HotInventoryService.Outcome.NOT_HOT && Boolean.TRUE.equals(product.getHotInventory())) {
+            // Switched to hot inventory while we were looking; its counters go live right after that commit
+            HotInventoryService.Outcome retry = hotInventoryService.tryReserve(productId, quantity);
+            if (retry == HotInventoryService.Outcome.RESERVED) return;
+            if (retry == HotInventoryService.Outcome.NOT_HOT) {
+                throw new BadRequestException("Stock for product " + product.getName() + " is being updated, please retry");
+            }
+        }
+        throw new BadRequestException("Insufficient stock for product: " + product.getName());
+    }
+}
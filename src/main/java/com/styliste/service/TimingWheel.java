@@ -0,0 +1,103 @@
+package com.styliste.service;
+
+import java.util.*;
+
+// Hierarchical timing wheel (as in Varghese & Lauck / Kafka's purgatory). Level 0 has one
+// bucket per tick, each level above has buckets spanning a whole revolution of the level
+// below. Scheduling and cancelling are O(1); advancing costs one bucket per elapsed tick plus
+// re-slotting the entries of a higher-level bucket when its time comes. Nothing is scanned,
+// however many timers are pending. Not thread-safe on its own; callers synchronize.
+class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<List<Map<K, Long>>> levels = new ArrayList<>(); // level -> bucket -> key -> deadline tick
+    private final Map<K, int[]> slots = new HashMap<>();             // key -> {level, bucket}
+    private long currentTick;
+
+    TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMillis / tickMillis;
+        for (int level = 0; level < levelCount; level++) {
+            List<Map<K, Long>> buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) buckets.add(new LinkedHashMap<>());
+            levels.add(buckets);
+        }
+    }
+
+    void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Round up so nothing fires early
+        place(key, Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis));
+    }
+
+    void cancel(K key) {
+        int[] slot = slots.remove(key);
+        if (slot != null) levels.get(slot[0]).get(slot[1]).remove(key);
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    // Moves the wheel up to nowMillis and returns the keys whose deadline has passed
+    List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Higher-level buckets starting at this tick get spread over the levels below, top
+            // level first so entries moved down can be moved down again in the same tick
+            int topLevel = 0;
+            long span = 1;
+            while (topLevel + 1 < levels.size() && currentTick % (span * wheelSize) == 0) {
+                span *= wheelSize;
+                topLevel++;
+            }
+            for (int level = topLevel; level >= 1; level--) {
+                Map<K, Long> bucket = levels.get(level).get((int) ((currentTick / span) % wheelSize));
+                span /= wheelSize;
+                if (bucket.isEmpty()) continue;
+                List<Map.Entry<K, Long>> entries = new ArrayList<>(bucket.entrySet());
+                bucket.clear();
+                for (Map.Entry<K, Long> entry : entries) place(entry.getKey(), entry.getValue());
+            }
+
+            Map<K, Long> due = levels.get(0).get((int) (currentTick % wheelSize));
+            for (K key : due.keySet()) {
+                slots.remove(key);
+                expired.add(key);
+            }
+            due.clear();
+        }
+        return expired;
+    }
+
+    // A deadline of currentTick lands in the level-0 bucket that advance() is about to expire
+    private void place(K key, long deadlineTick) {
+        deadlineTick = Math.max(deadlineTick, currentTick);
+
+        // Lowest level whose current revolution (as seen from currentTick) still reaches the deadline
+        long span = 1;
+        for (int level = 0; level < levels.size(); level++) {
+            if (deadlineTick / span - currentTick / span < wheelSize) {
+                put(key, deadlineTick, level, (int) ((deadlineTick / span) % wheelSize));
+                return;
+            }
+            span *= wheelSize;
+        }
+
+        // Beyond the top level: park in its furthest bucket and re-slot from there
+        span /= wheelSize;
+        int top = levels.size() - 1;
+        put(key, deadlineTick, top, (int) ((currentTick / span + wheelSize - 1) % wheelSize));
+    }
+
+    private void put(K key, long deadlineTick, int level, int bucket) {
+        levels.get(level).get(bucket).put(key, deadlineTick);
+        slots.put(key, new int[]{level, bucket});
+    }
+}
@@ -0,0 +1,94 @@
+package com.styliste.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// One-off cleanup before Hibernate adds uk_orders_tracking_number to an existing orders table:
+// blank tracking numbers become NULL (MySQL lets any number of NULLs through a unique index,
+// but only one ''), the rest are trimmed, and a number still shared by several orders stays
+// on the oldest of them (lowest id) and is cleared from the others, which are logged so their
+// numbers can be re-entered (PUT /api/orders/{id}/status). Otherwise the index can't be created
+// and the application doesn't start.
+// Runs before the EntityManagerFactory, so before ddl-auto=update touches the schema; once the
+// index exists each start costs two metadata lookups.
+@Slf4j
+@Component
+public class TrackingNumberCleanup {
+
+    private static final String INDEX = "uk_orders_tracking_number";
+
+    private static final String DUPLICATES_SQL =
+            "SELECT id, tracking_number FROM orders WHERE tracking_number IN (" +
+            "SELECT tracking_number FROM orders WHERE tracking_number IS NOT NULL " +
+            "GROUP BY tracking_number HAVING COUNT(*) > 1) ORDER BY tracking_number, id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void cleanUp() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) this::needsCleanup))) return;
+
+        int blanked = jdbcTemplate.update("UPDATE orders SET tracking_number = NULL WHERE TRIM(tracking_number) = ''");
+        int trimmed = jdbcTemplate.update(
+                "UPDATE orders SET tracking_number = TRIM(tracking_number) WHERE LENGTH(tracking_number) <> LENGTH(TRIM(tracking_number))");
+        if (blanked > 0 || trimmed > 0) {
+            log.info("Cleared {} blank and trimmed {} padded tracking numbers before adding {}", blanked, trimmed, INDEX);
+        }
+
+        Map<String, List<Long>> duplicates = new LinkedHashMap<>();
+        jdbcTemplate.query(DUPLICATES_SQL, (ResultSet row) -> {
+            duplicates.computeIfAbsent(row.getString("tracking_number"), number -> new ArrayList<>()).add(row.getLong("id"));
+        });
+        List<Object[]> cleared = new ArrayList<>();
+        duplicates.forEach((number, orderIds) -> {
+            List<Long> others = orderIds.subList(1, orderIds.size());
+            others.forEach(id -> cleared.add(new Object[]{id, number}));
+            log.error("Tracking number '{}' was on orders {}; kept it on order {} and cleared it from {} so {} can be "
+                    + "created. Re-enter their numbers with PUT /api/orders/{id}/status", number, orderIds,
+                    orderIds.get(0), others, INDEX);
+        });
+        if (!cleared.isEmpty()) {
+            // The number is checked again so an order that was given a new one since isn't cleared
+            jdbcTemplate.batchUpdate("UPDATE orders SET tracking_number = NULL WHERE id = ? AND tracking_number = ?", cleared);
+        }
+    }
+
+    // Only an existing orders table without the index needs looking at
+    private Boolean needsCleanup(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, "orders", new String[]{"TABLE"})) {
+            if (!tables.next()) return false;
+        }
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "orders", true, true)) {
+            while (indexes.next()) {
+                // H2 names the index behind the constraint <name>_INDEX_xx
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null && name.toLowerCase().startsWith(INDEX)) return false;
+            }
+        }
+        return true;
+    }
+
+    // Makes the EntityManagerFactory (and so the schema update) wait for the cleanup
+    @Component
+    static class RunBeforeSchemaUpdate extends EntityManagerFactoryDependsOnPostProcessor {
+        RunBeforeSchemaUpdate() {
+            super(TrackingNumberCleanup.class);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.styliste.service;
 
+import com.styliste.dto.CursorPage;
+import com.styliste.dto.PageCursor;
 import com.styliste.dto.UserDTO;
 import com.styliste.entity.User;
 import com.styliste.entity.UserRole;
@@ -13,6 +15,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Slf4j
 @Service
 @Transactional
@@ -51,6 +55,34 @@ public class UserService {
         return userPage.map(this::mapToDTO);
     }
 
+    public CursorPage<UserDTO> scrollUsers(String role, String cursor, Integer pageSize) {
+        log.debug("Scrolling users. Role filter: {}, cursor: {}", role, cursor);
+
+        UserRole userRole = null;
+        if (role != null && !role.isEmpty()) {
+            try {
+                userRole = UserRole.valueOf(role.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid role requested: {}", role);
+                return CursorPage.<UserDTO>builder().content(List.of()).build();
+            }
+        }
+
+        int size = CursorPage.clampSize(pageSize, 10);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<User> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userRepository.findFirstByCreatedAt(userRole, limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = userRepository.findAfterCreatedAt(userRole, after.sortKeyAsDateTime(), after.getId(), limit);
+        }
+
+        return CursorPage.fromRows(rows, size, this::mapToDTO,
+                user -> PageCursor.encode(user.getCreatedAt(), user.getId()));
+    }
+
     private UserDTO mapToDTO(User user) {
         return UserDTO.builder()
                 .id(user.getId())
@@ -0,0 +1,33 @@
+package com.styliste.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.styliste.entity.OrderStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The moves a carrier manifest may make, checked against every pair of statuses
+class OrderStatusTest {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED = Map.of(
+            PENDING, EnumSet.of(PENDING, PROCESSING, SHIPPED, CANCELLED),
+            PROCESSING, EnumSet.of(PROCESSING, SHIPPED, CANCELLED),
+            SHIPPED, EnumSet.of(SHIPPED, DELIVERED, RETURNED),
+            DELIVERED, EnumSet.of(DELIVERED, RETURNED),
+            CANCELLED, EnumSet.of(CANCELLED),
+            RETURNED, EnumSet.of(RETURNED));
+
+    @Test
+    void onlyForwardMovesAreAllowed() {
+        for (OrderStatus from : values()) {
+            for (OrderStatus to : values()) {
+                assertThat(from.canMoveTo(to))
+                        .as("%s -> %s", from, to)
+                        .isEqualTo(ALLOWED.get(from).contains(to));
+            }
+        }
+    }
+}
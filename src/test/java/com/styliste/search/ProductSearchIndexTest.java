@@ -0,0 +1,211 @@
+package com.styliste.search;
+
+import com.styliste.dto.ProductFilterRequest;
+import com.styliste.dto.SearchFacetsDTO;
+import com.styliste.dto.SearchSuggestionDTO;
+import com.styliste.entity.Product;
+import com.styliste.entity.ProductAttribute;
+import com.styliste.repository.OrderItemRepository;
+import com.styliste.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The index on its own, fed through index()/remove() the way ProductService keeps it in sync
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "priceBucketBounds",
+                new BigDecimal[]{new BigDecimal("500"), new BigDecimal("1000"), new BigDecimal("2000")});
+    }
+
+    @Test
+    void updatesArrivingWhileTheSnapshotIsReadSurviveTheRebuild() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        ReflectionTestUtils.setField(index, "orderItemRepository", orderItemRepository);
+
+        Product renamed = product(1L, "Silk Saree", "Women", "2999");
+        Product deactivated = product(2L, "Cotton Kurti", "Women", "799");
+        // The snapshot is read before these commits show up in it
+        when(productRepository.findByIsActiveTrueOrderByCreatedAtDesc()).thenAnswer(invocation -> {
+            index.index(product(1L, "Organza Saree", "Women", "2999"));
+            index.remove(2L);
+            index.index(product(3L, "Linen Kurta", "Men", "1299"));
+            return List.of(renamed, deactivated);
+        });
+        when(orderItemRepository.sumQuantityByProduct()).thenReturn(List.of());
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("organza")).containsExactly(1L);
+        assertThat(index.search("silk")).isEmpty();
+        assertThat(index.search("kurti")).isEmpty();
+        assertThat(index.search("linen")).containsExactly(3L);
+        assertThat(index.facetCounts(all()).getCategories()).containsExactly(entry("Men", 1L), entry("Women", 1L));
+
+        // Later changes are applied directly again
+        index.remove(1L);
+        assertThat(index.search("organza")).isEmpty();
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        Product inDescription = product(1L, "Cotton Kurta", "Men", "899");
+        inDescription.setDescription("Pairs well with a silk dupatta");
+        Product inName = product(2L, "Silk Saree", "Women", "2999");
+        inName.setDescription("Six yards, hand woven");
+        index.index(inDescription);
+        index.index(inName);
+        index.index(product(3L, "Linen Shirt", "Men", "1299"));
+
+        RankedSearchResult result = index.rankedSearch(query("silk"), 0, 10);
+
+        assertThat(result.getProductIds()).containsExactly(2L, 1L);
+        assertThat(result.getTotalMatches()).isEqualTo(2);
+        // Paging keeps the rank order
+        assertThat(index.rankedSearch(query("silk"), 1, 10).getProductIds()).containsExactly(1L);
+    }
+
+    @Test
+    void misspelledTokenIsCorrectedToAKnownWord() {
+        index.index(product(1L, "Banarasi Silk Saree", "Women", "4999"));
+        index.index(product(2L, "Silk Scarf", "Women", "699"));
+
+        assertThat(index.search("sarre")).isEmpty();
+        assertThat(index.suggestQueries("sarre", 3)).first().isEqualTo("saree");
+        // Known tokens are kept as typed, only the unknown one is swapped
+        assertThat(index.suggestQueries("silk sarre", 3)).first().isEqualTo("silk saree");
+        assertThat(index.search(index.suggestQueries("sarre", 3).get(0))).containsExactly(1L);
+
+        // Once no product has the word, it is no longer suggested
+        index.remove(1L);
+        assertThat(index.suggestQueries("sarre", 3)).doesNotContain("saree");
+    }
+
+    @Test
+    void facetCountsFollowIndexAndRemove() {
+        index.index(product(1L, "Silk Saree", "Women", "2999", "Size", "Free"));
+        index.index(product(2L, "Cotton Kurti", "Women", "799", "Size", "M"));
+        index.index(product(3L, "Linen Kurta", "Men", "1299", "Size", "M"));
+
+        SearchFacetsDTO facets = index.facetCounts(all());
+        assertThat(facets.getCategories()).containsExactly(entry("Women", 2L), entry("Men", 1L));
+        assertThat(facets.getPriceRanges()).containsExactly(
+                entry("500-1000", 1L), entry("1000-2000", 1L), entry("2000+", 1L));
+        assertThat(facets.getAttributes()).containsOnlyKeys("Size");
+        assertThat(facets.getAttributes().get("Size")).containsExactly(entry("M", 2L), entry("Free", 1L));
+
+        // Re-indexing moves the product between values; removing it drops it everywhere
+        index.index(product(2L, "Cotton Kurti", "Men", "1099", "Size", "L"));
+        index.remove(1L);
+
+        facets = index.facetCounts(all());
+        assertThat(facets.getCategories()).containsExactly(entry("Men", 2L));
+        assertThat(facets.getPriceRanges()).containsExactly(entry("1000-2000", 2L));
+        assertThat(facets.getAttributes().get("Size")).containsExactly(entry("L", 1L), entry("M", 1L));
+    }
+
+    @Test
+    void facetValuesAreCaseInsensitive() {
+        index.index(product(1L, "Silk Saree", "Women", "2999", "Colour", "Red"));
+        index.index(product(2L, "Chiffon Saree", "women", "1999", "colour", "RED"));
+        index.index(product(3L, "Linen Kurta", "Men", "1299", "Colour", "Blue"));
+
+        SearchFacetsDTO facets = index.facetCounts(all());
+        assertThat(facets.getCategories()).containsExactly(entry("Women", 2L), entry("Men", 1L));
+        assertThat(facets.getAttributes()).containsOnlyKeys("Colour");
+        assertThat(facets.getAttributes().get("Colour")).containsExactly(entry("Red", 2L), entry("Blue", 1L));
+
+        ProductFilterRequest filter = ProductFilterRequest.builder()
+                .category("WOMEN")
+                .attributes(Map.of("COLOUR", List.of("red")))
+                .build();
+        assertThat(index.sortedSearch(filter, "name", true, 0, 10).getProductIds()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void priceRangeIsIntersectedWithTheOtherFacets() {
+        index.index(product(1L, "Silk Saree", "Women", "2999", "Size", "Free"));
+        index.index(product(2L, "Cotton Saree", "Women", "999", "Size", "Free"));
+        index.index(product(3L, "Georgette Saree", "Women", "1499", "Size", "Free"));
+        index.index(product(4L, "Linen Kurta", "Men", "1299", "Size", "M"));
+
+        ProductFilterRequest filter = ProductFilterRequest.builder()
+                .searchQuery("saree")
+                .minPrice(new BigDecimal("900"))
+                .maxPrice(new BigDecimal("2000"))
+                .attributes(Map.of("Size", List.of("Free")))
+                .build();
+
+        SearchFacetsDTO facets = index.facetCounts(filter);
+        assertThat(facets.getCategories()).containsExactly(entry("Women", 2L));
+        assertThat(facets.getPriceRanges()).containsExactly(entry("500-1000", 1L), entry("1000-2000", 1L));
+
+        // The page and its total come from the same candidates
+        RankedSearchResult page = index.sortedSearch(filter, "price", false, 0, 1);
+        assertThat(page.getProductIds()).containsExactly(3L);
+        assertThat(page.getTotalMatches()).isEqualTo(2);
+        assertThat(index.sortedSearch(filter, "price", false, 1, 1).getProductIds()).containsExactly(2L);
+    }
+
+    @Test
+    void prefixLongerThanTheTrieKeysStillNarrowsTheCompletions() {
+        index.index(product(1L, "Hand Embroidered Banarasi Silk Wedding Saree With Zari Border", "Women", "1999"));
+        index.index(product(2L, "Hand Embroidered Banarasi Silk Wedding Saree With Mirror Work", "Women", "2499"));
+
+        // Both names share the first 40 characters of the prefix; only one goes on with "zari"
+        assertThat(index.autocomplete("hand embroidered banarasi silk wedding saree with zari", 5))
+                .extracting(SearchSuggestionDTO::getProductId)
+                .containsExactly(1L);
+        assertThat(index.autocomplete("banarasi silk wedding saree with mirror", 5))
+                .extracting(SearchSuggestionDTO::getProductId)
+                .containsExactly(2L);
+        assertThat(index.autocomplete("hand embroidered banarasi silk wedding saree with", 5))
+                .extracting(SearchSuggestionDTO::getProductId)
+                .containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    private static ProductFilterRequest query(String searchQuery) {
+        return ProductFilterRequest.builder().searchQuery(searchQuery).build();
+    }
+
+    private static ProductFilterRequest all() {
+        return ProductFilterRequest.builder().build();
+    }
+
+    private static Product product(Long id, String name, String category, String price,
+                                   String attributeType, String attributeValue) {
+        Product product = product(id, name, category, price);
+        product.getAttributes().add(new ProductAttribute(attributeType, attributeValue));
+        return product;
+    }
+
+    private static Product product(Long id, String name, String category, String price) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .category(category)
+                .price(new BigDecimal(price))
+                .stock(10)
+                .isActive(true)
+                .attributes(new ArrayList<>(List.of()))
+                .build();
+    }
+}
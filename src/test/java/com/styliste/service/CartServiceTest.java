@@ -0,0 +1,158 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CartQuoteDTO;
+import com.styliste.dto.CheckoutRequest;
+import com.styliste.dto.OrderDTO;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.exception.BadRequestException;
+import com.styliste.repository.IdempotencyRecordRepository;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Quotes price the cart from product snapshots; checkout places one order for the whole cart,
+// empties it, and replays that order for a retry carrying the same Idempotency-Key.
+@SpringBootTest
+class CartServiceTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+    private Long saree;
+    private Long scarf;
+
+    @BeforeEach
+    void seedCatalog() {
+        userId = userRepository.save(User.builder()
+                .name("Cart Test")
+                .email("cart@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        saree = productRepository.save(product("Cart Saree", "2500.00", "2100.00", 5)).getId();
+        scarf = productRepository.save(product("Cart Scarf", "400.00", null, 1)).getId();
+    }
+
+    @AfterEach
+    void removeOrders() throws InterruptedException {
+        cartService.clear(userId);
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+        idempotencyRecordRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void quoteUsesSalePricesAndMergesSameVariant() {
+        cartService.addItem(userId, item(saree, 1, "Free"));
+        cartService.addItem(userId, item(saree, 1, "Free"));
+        CartQuoteDTO quote = cartService.addItem(userId, item(scarf, 1, null));
+
+        assertThat(quote.getLines()).hasSize(2);
+        assertThat(quote.getLines().get(0).getQuantity()).isEqualTo(2);
+        assertThat(quote.getItemCount()).isEqualTo(3);
+        assertThat(quote.getSubtotal()).isEqualByComparingTo("4600.00");
+        assertThat(quote.isOrderable()).isTrue();
+    }
+
+    @Test
+    void cartAskingForMoreThanIsInStockCannotBeCheckedOut() {
+        CartQuoteDTO quote = cartService.addItem(userId, item(scarf, 2, null));
+
+        assertThat(quote.isOrderable()).isFalse();
+        assertThat(quote.getLines().get(0).getMessage()).isEqualTo("Only 1 in stock");
+        assertThatThrownBy(() -> cartService.checkout(userId, checkout(), null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Cart Scarf: Only 1 in stock");
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void checkoutPlacesOneOrderAndEmptiesTheCart() {
+        cartService.addItem(userId, item(saree, 2, "Free"));
+        cartService.addItem(userId, item(scarf, 1, null));
+
+        OrderDTO order = cartService.checkout(userId, checkout(), null);
+
+        assertThat(order.getItems()).hasSize(2);
+        assertThat(order.getTotalAmount()).isNotNull();
+        assertThat(cartService.quote(userId, null).getLines()).isEmpty();
+        assertThat(productRepository.findById(saree).orElseThrow().getStock()).isEqualTo(3);
+        assertThatThrownBy(() -> cartService.checkout(userId, checkout(), null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Cart is empty");
+    }
+
+    @Test
+    void retryWithTheSameKeyGetsTheOriginalOrderAfterTheCartIsEmptied() {
+        cartService.addItem(userId, item(saree, 1, "Free"));
+
+        OrderDTO placed = cartService.checkout(userId, checkout(), "checkout-1");
+        OrderDTO retried = cartService.checkout(userId, checkout(), "checkout-1");
+
+        assertThat(retried.getId()).isEqualTo(placed.getId());
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(productRepository.findById(saree).orElseThrow().getStock()).isEqualTo(4);
+
+        // A new key is a new checkout, and the cart is empty now
+        assertThatThrownBy(() -> cartService.checkout(userId, checkout(), "checkout-2"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Cart is empty");
+    }
+
+    private static Product product(String name, String price, String salePrice, int stock) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .salePrice(salePrice != null ? new BigDecimal(salePrice) : null)
+                .stock(stock)
+                .category("Women")
+                .isActive(true)
+                .build();
+    }
+
+    private static CartItemDTO item(Long productId, int quantity, String size) {
+        return CartItemDTO.builder().productId(productId).quantity(quantity).selectedSize(size).build();
+    }
+
+    private static CheckoutRequest checkout() {
+        return CheckoutRequest.builder().shippingAddress("7 Brigade Road, Bengaluru").build();
+    }
+}
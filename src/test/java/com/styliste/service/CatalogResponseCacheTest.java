@@ -0,0 +1,146 @@
+package com.styliste.service;
+
+import com.styliste.config.CatalogResponseCacheFilter;
+import com.styliste.dto.UpdateProductRequest;
+import com.styliste.entity.Product;
+import com.styliste.repository.ProductRepository;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Catalog responses are cached as plain and gzipped bytes under a key that ignores parameter
+// order, served without reaching the controller, and dropped by catalog writes; a response
+// rendered while a write lands is not stored.
+@SpringBootTest
+class CatalogResponseCacheTest {
+
+    private static final String BODY = "{\"content\":[{\"name\":\"Cached Lehenga\"}]}";
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private CatalogResponseCacheFilter filter;
+    private final AtomicInteger rendered = new AtomicInteger();
+    private Runnable duringRender = () -> { };
+
+    @BeforeEach
+    void createFilter() {
+        catalogResponseCache.invalidateAll();
+        filter = new CatalogResponseCacheFilter(catalogResponseCache);
+    }
+
+    @AfterEach
+    void removeProducts() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void secondRequestIsServedFromTheCacheWhateverTheParameterOrder() throws Exception {
+        MockHttpServletResponse first = get("/api/products", "page", "0", "pageSize", "12");
+        MockHttpServletResponse second = get("/api/products", "pageSize", "12", "page", "0");
+
+        assertThat(rendered).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo(BODY);
+        assertThat(second.getContentAsString()).isEqualTo(BODY);
+        assertThat(second.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void gzipClientsGetTheCompressedCopy() throws Exception {
+        get("/api/categories");
+
+        MockHttpServletRequest request = request("/api/categories");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+
+        assertThat(rendered).hasValue(1);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    void responseRenderedWhileTheCatalogChangesIsNotStored() throws Exception {
+        duringRender = catalogResponseCache::invalidateAll;
+        get("/api/products/category/Women");
+
+        duringRender = () -> { };
+        get("/api/products/category/Women");
+        get("/api/products/category/Women");
+
+        // The first render raced a write, so only the second one was cached
+        assertThat(rendered).hasValue(2);
+    }
+
+    @Test
+    void productWritesDropCachedPages() throws Exception {
+        Long productId = productRepository.save(Product.builder()
+                .name("Cached Lehenga")
+                .price(new BigDecimal("6999.00"))
+                .stock(3)
+                .category("Women")
+                .isActive(true)
+                .build()).getId();
+        get("/api/products");
+        assertThat(catalogResponseCache.get("/api/products")).isNotNull();
+
+        productService.updateProduct(productId, UpdateProductRequest.builder().price(new BigDecimal("5999.00")).build());
+
+        assertThat(catalogResponseCache.get("/api/products")).isNull();
+        get("/api/products");
+        assertThat(rendered).hasValue(2);
+    }
+
+    private MockHttpServletResponse get(String path, String... parameters) throws Exception {
+        MockHttpServletRequest request = request(path);
+        for (int i = 0; i < parameters.length; i += 2) request.addParameter(parameters[i], parameters[i + 1]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRequestURI(path);
+        return request;
+    }
+
+    // Stands in for the controller: counts renders and writes a fixed JSON body
+    private MockFilterChain chain() {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                rendered.incrementAndGet();
+                duringRender.run();
+                response.setContentType("application/json");
+                response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
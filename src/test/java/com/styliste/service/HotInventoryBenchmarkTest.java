@@ -0,0 +1,204 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.exception.BadRequestException;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Plain DB stock path vs hot inventory counters for one SKU under many threads: raw
+// reservations and full checkouts. Both must sell exactly the stock available.
+@Slf4j
+@SpringBootTest
+class HotInventoryBenchmarkTest {
+
+    private static final int THREADS = 32;
+    private static final int RESERVATION_STOCK = 2_000;
+    private static final int CHECKOUT_STOCK = 400;
+
+    @Autowired
+    private HotInventoryService hotInventoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(User.builder()
+                .name("Flash Sale")
+                .email("flash-sale@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.findByHotInventoryTrue().forEach(product -> productService.setHotInventory(product.getId(), false));
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void reservationsNeverOversell() throws Exception {
+        Long dbProductId = productRepository.save(product("DB Path Sneaker", RESERVATION_STOCK)).getId();
+        int dbSold = hammer("reservation, DB path", () -> transactionTemplate.execute(status ->
+                productRepository.decrementStock(dbProductId, 1) > 0));
+
+        Long hotProductId = productRepository.save(product("Hot Sneaker", RESERVATION_STOCK)).getId();
+        productService.setHotInventory(hotProductId, true);
+        int hotSold = hammer("reservation, hot counters", () ->
+                hotInventoryService.tryReserve(hotProductId, 1) == HotInventoryService.Outcome.RESERVED);
+        hotInventoryService.flush();
+
+        assertThat(dbSold).isEqualTo(RESERVATION_STOCK);
+        assertThat(hotSold).isEqualTo(RESERVATION_STOCK);
+        assertThat(stockOf(dbProductId)).isZero();
+        assertThat(stockOf(hotProductId)).isZero();
+    }
+
+    @Test
+    void checkoutsNeverOversell() throws Exception {
+        Long dbProductId = productRepository.save(product("DB Path Jacket", CHECKOUT_STOCK)).getId();
+        int dbOrders = hammer("checkout, DB path", () -> checkout(dbProductId));
+
+        Long hotProductId = productRepository.save(product("Hot Jacket", CHECKOUT_STOCK)).getId();
+        productService.setHotInventory(hotProductId, true);
+        int hotOrders = hammer("checkout, hot counters", () -> checkout(hotProductId));
+
+        // Switching off writes back whatever the scheduled flush hasn't yet
+        productService.setHotInventory(hotProductId, false);
+
+        assertThat(dbOrders).isEqualTo(CHECKOUT_STOCK);
+        assertThat(hotOrders).isEqualTo(CHECKOUT_STOCK);
+        assertThat(stockOf(dbProductId)).isZero();
+        assertThat(stockOf(hotProductId)).isZero();
+        assertThat(orderRepository.count()).isEqualTo(2L * CHECKOUT_STOCK);
+    }
+
+    @Test
+    void rolledBackCheckoutReturnsHotStock() {
+        Long hotProductId = productRepository.save(product("Hot Scarf", 5)).getId();
+        productService.setHotInventory(hotProductId, true);
+
+        CreateOrderRequest request = CreateOrderRequest.builder()
+                .items(List.of(
+                        CartItemDTO.builder().productId(hotProductId).quantity(2).build(),
+                        CartItemDTO.builder().productId(Long.MAX_VALUE).quantity(1).build()))
+                .shippingAddress("4 Park Street, Kolkata")
+                .build();
+
+        assertThatThrownBy(() -> orderService.createOrder(userId, request))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(hotInventoryService.available(hotProductId)).isEqualTo(5);
+    }
+
+    // Runs until the stock is gone, returns how many attempts succeeded
+    private int hammer(String label, BooleanSupplier attempt) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger soldOutAttempts = new AtomicInteger();
+        List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                while (soldOutAttempts.get() < THREADS) {
+                    try {
+                        if (attempt.getAsBoolean()) {
+                            succeeded.incrementAndGet();
+                            continue;
+                        }
+                    } catch (BadRequestException e) {
+                        // sold out
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                        return null;
+                    }
+                    soldOutAttempts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) future.get(120, TimeUnit.SECONDS);
+        long elapsedMicros = Math.max(1, (System.nanoTime() - startedAt) / 1_000);
+        executor.shutdown();
+
+        log.info("{}: {} units sold by {} threads in {} ms ({} per second)", label, succeeded.get(), THREADS,
+                elapsedMicros / 1_000, succeeded.get() * 1_000_000L / elapsedMicros);
+        assertThat(unexpected).isEmpty();
+        return succeeded.get();
+    }
+
+    private boolean checkout(Long productId) {
+        orderService.createOrder(userId, CreateOrderRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(1).build()))
+                .shippingAddress("4 Park Street, Kolkata")
+                .build());
+        return true;
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private Product product(String name, int stock) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal("2499.00"))
+                .stock(stock)
+                .category("Men")
+                .subcategory("Footwear")
+                .images(new ArrayList<>())
+                .videos(new ArrayList<>())
+                .attributes(new ArrayList<>())
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.styliste.service;
+
+import com.styliste.controller.OrderController;
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.entity.Invoice;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Invoices are rendered to files after the order commits, replaced atomically on re-render and
+// streamed from disk, with their checksum as the ETag.
+@SpringBootTest
+class InvoiceServiceTest {
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+    private User stranger;
+    private Long orderId;
+
+    @BeforeEach
+    void placeOrder() throws InterruptedException {
+        customer = userRepository.save(user("invoice-owner@styliste.test"));
+        stranger = userRepository.save(user("invoice-stranger@styliste.test"));
+        Long productId = productRepository.save(Product.builder()
+                .name("Invoice Lehenga")
+                .price(new BigDecimal("4999.00"))
+                .stock(10)
+                .category("Women")
+                .isActive(true)
+                .build()).getId();
+
+        orderId = orderService.createOrder(customer.getId(), CreateOrderRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(2).selectedSize("M").build()))
+                .shippingAddress("4 Park Street, Kolkata")
+                .build()).getId();
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void renderedFileMatchesStoredChecksumAndSize() throws Exception {
+        InvoiceService.InvoiceFile invoice = invoiceService.getInvoiceFile(orderId);
+
+        byte[] pdf = Files.readAllBytes(invoice.getPath());
+        assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+        assertThat(invoice.getSize()).isEqualTo(pdf.length);
+        assertThat(invoice.getChecksum()).isEqualTo(sha256(pdf));
+        assertThat(invoice.getInvoiceNumber()).isEqualTo(String.format("INV-%08d", orderId));
+    }
+
+    @Test
+    void reRenderReplacesThePreviousFile() throws Exception {
+        InvoiceService.InvoiceFile first = invoiceService.getInvoiceFile(orderId);
+        Invoice invoice = invoiceRepository.findByOrderId(orderId).orElseThrow();
+
+        // The payment status is printed on the invoice, so the new file has different content
+        jdbcTemplate.update("UPDATE orders SET payment_status = 'COMPLETED' WHERE id = ?", orderId);
+        invoiceService.render(invoice.getId());
+
+        InvoiceService.InvoiceFile second = invoiceService.getInvoiceFile(orderId);
+        assertThat(second.getChecksum()).isNotEqualTo(first.getChecksum());
+        assertThat(second.getPath()).isNotEqualTo(first.getPath());
+        assertThat(Files.exists(first.getPath())).isFalse();
+        assertThat(sha256(Files.readAllBytes(second.getPath()))).isEqualTo(second.getChecksum());
+    }
+
+    @Test
+    void downloadStreamsTheFileAndHonoursTheETag() throws Exception {
+        InvoiceService.InvoiceFile invoice = invoiceService.getInvoiceFile(orderId);
+
+        MockHttpServletResponse download = new MockHttpServletResponse();
+        orderController.downloadInvoice(orderId, auth(customer), new MockHttpServletRequest(), download);
+
+        assertThat(download.getStatus()).isEqualTo(200);
+        assertThat(download.getContentType()).isEqualTo("application/pdf");
+        assertThat(download.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + invoice.getChecksum() + "\"");
+        assertThat(download.getContentAsByteArray()).isEqualTo(Files.readAllBytes(invoice.getPath()));
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, download.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        orderController.downloadInvoice(orderId, auth(customer), conditional, notModified);
+
+        assertThat(notModified.getStatus()).isEqualTo(304);
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void strangersAreRefusedBeforeTheInvoiceIsLookedUp() throws Exception {
+        // Without the owner check first, this would be a 404 that tells them the order exists
+        invoiceRepository.deleteAll();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        orderController.downloadInvoice(orderId, auth(stranger), new MockHttpServletRequest(), response);
+
+        assertThat(response.getStatus()).isEqualTo(403);
+    }
+
+    private static User user(String email) {
+        return User.builder()
+                .name("Invoice Test")
+                .email(email)
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build();
+    }
+
+    private static Authentication auth(User user) {
+        return new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,191 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.OrderDTO;
+import com.styliste.dto.TrackingDTO;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Finished orders move to the archive tables in one piece, only if they still qualify once
+// locked, and stay readable through OrderService afterwards.
+@SpringBootTest
+class OrderArchiverTest {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.now().minusDays(400);
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+    private Long productId;
+
+    @BeforeEach
+    void seedCustomer() {
+        userId = userRepository.save(User.builder()
+                .name("Archive Test")
+                .email("archive@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        productId = productRepository.save(Product.builder()
+                .name("Archive Dupatta")
+                .price(new BigDecimal("899.00"))
+                .stock(100)
+                .category("Women")
+                .isActive(true)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        jdbcTemplate.update("DELETE FROM archived_order_items");
+        jdbcTemplate.update("DELETE FROM archived_orders");
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void movesOldFinishedOrdersWithTheirItems() throws InterruptedException {
+        Long archived = placeOrder("TRK-ARCHIVED", "DELIVERED", LONG_AGO, LONG_AGO);
+        Long recent = placeOrder("TRK-RECENT", "DELIVERED", LocalDateTime.now(), LocalDateTime.now());
+        Long open = placeOrder("TRK-OPEN", "SHIPPED", LONG_AGO, LONG_AGO);
+
+        assertThat(orderArchiver.archive()).isEqualTo(1);
+
+        assertThat(orderRepository.existsById(archived)).isFalse();
+        assertThat(orderRepository.existsById(recent)).isTrue();
+        assertThat(orderRepository.existsById(open)).isTrue();
+        assertThat(count("SELECT COUNT(*) FROM order_items WHERE order_id = ?", archived)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM archived_orders WHERE id = ? AND tracking_number = 'TRK-ARCHIVED'", archived)).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM archived_order_items WHERE order_id = ? AND product_name = 'Archive Dupatta' " +
+                "AND product_category = 'Women'", archived))
+                .isEqualTo(2);
+        // Invoices reference orders by id and stay where they are
+        assertThat(invoiceRepository.findByOrderId(archived)).isPresent();
+    }
+
+    @Test
+    void archivedOrdersAreStillServedByOrderService() throws InterruptedException {
+        Long archived = placeOrder("TRK-ARCHIVED", "DELIVERED", LONG_AGO, LONG_AGO);
+        Long recent = placeOrder("TRK-RECENT", "PROCESSING", LocalDateTime.now(), LocalDateTime.now());
+        orderArchiver.archive();
+
+        OrderDTO order = orderService.getOrderById(archived);
+        assertThat(order.getStatus()).isEqualTo("DELIVERED");
+        assertThat(order.getUserId()).isEqualTo(userId);
+        assertThat(order.getItems()).hasSize(2).allSatisfy(item -> assertThat(item.getProductName()).isEqualTo("Archive Dupatta"));
+
+        Page<OrderDTO> history = orderService.getUserOrders(userId, 0, 10);
+        assertThat(history.getTotalElements()).isEqualTo(2);
+        assertThat(history.getContent()).extracting(OrderDTO::getId).containsExactly(recent, archived);
+        assertThat(history.getContent().get(1).getItems()).hasSize(2);
+
+        TrackingDTO tracking = orderService.trackOrder("TRK-ARCHIVED");
+        assertThat(tracking.getOrderId()).isEqualTo(archived);
+        assertThat(tracking.getStatus()).isEqualTo("DELIVERED");
+        assertThat(tracking.getItemCount()).isEqualTo(2);
+    }
+
+    @Test
+    void ordersThatChangedAfterBeingPickedAreLeftAlone() throws InterruptedException {
+        Long untouched = placeOrder("TRK-UNTOUCHED", "DELIVERED", LONG_AGO, LONG_AGO);
+        Long returned = placeOrder("TRK-RETURNED", "DELIVERED", LONG_AGO, LONG_AGO);
+        Long reopened = placeOrder("TRK-REOPENED", "DELIVERED", LONG_AGO, LONG_AGO);
+
+        // Both were picked as candidates, then changed before the chunk took its locks
+        jdbcTemplate.update("UPDATE orders SET status = 'RETURNED', updated_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), returned);
+        jdbcTemplate.update("UPDATE orders SET status = 'PROCESSING' WHERE id = ?", reopened);
+
+        Integer moved = transactionTemplate.execute(status ->
+                orderArchiver.moveChunk(List.of(untouched, returned, reopened), LocalDateTime.now().minusDays(180)));
+
+        assertThat(moved).isEqualTo(1);
+        assertThat(orderRepository.existsById(untouched)).isFalse();
+        assertThat(orderRepository.existsById(returned)).isTrue();
+        assertThat(orderRepository.existsById(reopened)).isTrue();
+        assertThat(count("SELECT COUNT(*) FROM order_items WHERE order_id IN (?, ?)", returned, reopened)).isEqualTo(4);
+    }
+
+    @Test
+    void legacyInvoiceForeignKeyIsDroppedBeforeArchiving() throws InterruptedException {
+        Long archived = placeOrder("TRK-ARCHIVED", "DELIVERED", LONG_AGO, LONG_AGO);
+        // What ddl-auto=update left behind from when Invoice mapped its order
+        jdbcTemplate.execute("ALTER TABLE invoices ADD CONSTRAINT fk_invoices_order FOREIGN KEY (order_id) " +
+                "REFERENCES orders (id) ON DELETE CASCADE");
+
+        assertThat(orderArchiver.archive()).isEqualTo(1);
+
+        assertThat(invoiceRepository.findByOrderId(archived)).isPresent();
+        assertThat(count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                "WHERE LOWER(TABLE_NAME) = 'invoices' AND CONSTRAINT_TYPE = 'FOREIGN KEY'")).isZero();
+    }
+
+    private Long placeOrder(String trackingNumber, String status, LocalDateTime createdAt, LocalDateTime updatedAt)
+            throws InterruptedException {
+        Long orderId = orderService.createOrder(userId, CreateOrderRequest.builder()
+                .items(List.of(
+                        CartItemDTO.builder().productId(productId).quantity(1).selectedSize("S").build(),
+                        CartItemDTO.builder().productId(productId).quantity(1).selectedSize("M").build()))
+                .shippingAddress("9 Residency Road, Bengaluru")
+                .build()).getId();
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+
+        jdbcTemplate.update("UPDATE orders SET status = ?, tracking_number = ?, created_at = ?, updated_at = ? WHERE id = ?",
+                status, trackingNumber, Timestamp.valueOf(createdAt), Timestamp.valueOf(updatedAt), orderId);
+        return orderId;
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,195 @@
+package com.styliste.service;
+
+import com.styliste.dto.BulkStatusUpdateResult;
+import com.styliste.dto.BulkStatusUpdateRow;
+import com.styliste.dto.BulkStatusUpdateSummary;
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Carrier manifests: CSV parsing, rows checked against what earlier rows in the chunk did, and
+// a chunk the database rejects reported as not applied
+@SpringBootTest
+class OrderBulkStatusServiceTest {
+
+    @Autowired
+    private OrderBulkStatusService orderBulkStatusService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long first;
+    private Long second;
+    private Long third;
+
+    @BeforeEach
+    void placeOrders() throws InterruptedException {
+        Long userId = userRepository.save(User.builder()
+                .name("Bulk Update")
+                .email("bulk-update@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        Long productId = productRepository.save(Product.builder()
+                .name("Bulk Update Kurta")
+                .price(new BigDecimal("1499.00"))
+                .stock(100)
+                .category("Men")
+                .isActive(true)
+                .build()).getId();
+
+        CreateOrderRequest request = CreateOrderRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(1).build()))
+                .shippingAddress("22 Linking Road, Mumbai")
+                .build();
+        first = orderService.createOrder(userId, request).getId();
+        second = orderService.createOrder(userId, request).getId();
+        third = orderService.createOrder(userId, request).getId();
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        jdbcTemplate.execute("ALTER TABLE orders DROP CONSTRAINT IF EXISTS chk_orders_not_lost");
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void csvHeaderIsSkippedAndQuotedFieldsAreUnescaped() throws Exception {
+        String csv = "orderId,status,trackingNumber\n"
+                + first + ",shipped,\"DTDC, box \"\"7\"\"\"\n"
+                + "\n"
+                + "\"" + second + "\",\"PROCESSING\"\n"
+                + third + ",DELIVERED,TRK-3\n"
+                + "12x,SHIPPED\n";
+
+        BulkStatusUpdateSummary summary = orderBulkStatusService.applyCsv(stream(csv));
+
+        // Results carry CSV line numbers, counting the header and the blank line
+        assertThat(summary.getRows()).extracting(BulkStatusUpdateResult::getRow, BulkStatusUpdateResult::getOrderId,
+                BulkStatusUpdateResult::getOutcome).containsExactly(
+                tuple(2, first, "UPDATED"),
+                tuple(4, second, "UPDATED"),
+                tuple(5, third, "INVALID"),
+                tuple(6, null, "INVALID"));
+        assertThat(summary.getUpdated()).isEqualTo(2);
+        assertThat(summary.getFailed()).isEqualTo(2);
+        assertThat(trackingNumber(first)).isEqualTo("DTDC, box \"7\"");
+        assertThat(status(second)).isEqualTo("PROCESSING");
+        assertThat(status(third)).isEqualTo("PENDING");
+    }
+
+    @Test
+    void byteOrderMarkDoesNotHideTheFirstRow() throws Exception {
+        String csv = "\uFEFF" + first + ",SHIPPED,TRK-BOM\n" + second + ",SHIPPED\n";
+
+        BulkStatusUpdateSummary summary = orderBulkStatusService.applyCsv(stream(csv));
+
+        assertThat(summary.getRows()).extracting(BulkStatusUpdateResult::getRow, BulkStatusUpdateResult::getOutcome)
+                .containsExactly(tuple(1, "UPDATED"), tuple(2, "UPDATED"));
+        assertThat(trackingNumber(first)).isEqualTo("TRK-BOM");
+    }
+
+    @Test
+    void byteOrderMarkBeforeAHeaderStillSkipsIt() throws Exception {
+        String csv = "\uFEFForderId,status\n" + first + ",CANCELLED\n";
+
+        BulkStatusUpdateSummary summary = orderBulkStatusService.applyCsv(stream(csv));
+
+        assertThat(summary.getTotal()).isEqualTo(1);
+        assertThat(status(first)).isEqualTo("CANCELLED");
+    }
+
+    @Test
+    void trackingNumbersClashingWithinAChunkAreCaught() {
+        BulkStatusUpdateSummary summary = orderBulkStatusService.apply(List.of(
+                row(first, "SHIPPED", "TRK-SAME"),
+                row(second, "SHIPPED", "TRK-SAME"),
+                // first gives the number up, so second can have it now
+                row(first, "SHIPPED", "TRK-NEW"),
+                row(second, "SHIPPED", "TRK-SAME")));
+
+        assertThat(summary.getRows()).extracting(BulkStatusUpdateResult::getOutcome)
+                .containsExactly("UPDATED", "CONFLICT", "UPDATED", "UPDATED");
+        assertThat(summary.getRows().get(1).getMessage()).endsWith("order " + first);
+        assertThat(trackingNumber(first)).isEqualTo("TRK-NEW");
+        assertThat(trackingNumber(second)).isEqualTo("TRK-SAME");
+    }
+
+    @Test
+    void chunkRejectedByTheDatabaseIsRolledBackAndReportedAsConflict() {
+        // A rule only the database knows about, so the in-memory checks let the row through
+        jdbcTemplate.execute("ALTER TABLE orders ADD CONSTRAINT chk_orders_not_lost " +
+                "CHECK (tracking_number IS NULL OR tracking_number <> 'LOST')");
+
+        BulkStatusUpdateSummary summary = orderBulkStatusService.apply(List.of(
+                row(first, "SHIPPED", "TRK-OK"),
+                row(second, "SHIPPED", "LOST")));
+
+        assertThat(summary.getRows()).extracting(BulkStatusUpdateResult::getOutcome)
+                .containsExactly("CONFLICT", "CONFLICT");
+        assertThat(summary.getRows()).allSatisfy(result -> assertThat(result.getMessage()).startsWith("Not applied"));
+        assertThat(summary.getUpdated()).isZero();
+        assertThat(status(first)).isEqualTo("PENDING");
+        assertThat(trackingNumber(first)).isNull();
+    }
+
+    private static BulkStatusUpdateRow row(Long orderId, String status, String trackingNumber) {
+        return BulkStatusUpdateRow.builder().orderId(orderId).status(status).trackingNumber(trackingNumber).build();
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String status(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+    }
+
+    private String trackingNumber(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT tracking_number FROM orders WHERE id = ?", String.class, orderId);
+    }
+}
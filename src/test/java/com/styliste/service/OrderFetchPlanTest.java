@@ -0,0 +1,226 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.CursorPage;
+import com.styliste.dto.OrderDTO;
+import com.styliste.entity.Order;
+import com.styliste.entity.OrderStatus;
+import com.styliste.entity.Product;
+import com.styliste.entity.ProductAttribute;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Order pages must cost the same number of statements however many orders and items are on
+// them (the fetch plans in OrderRepository, not lazy loading per row), and never read products:
+// order items carry a snapshot of the product name and image.
+@SpringBootTest
+class OrderFetchPlanTest {
+
+    private static final int ORDER_COUNT = 30;
+    private static final int PRODUCT_COUNT = 8;
+
+    // page query, count query, the page's items
+    private static final long PAGE_STATEMENTS = 3;
+    private static final long CURSOR_PAGE_STATEMENTS = 2;
+    private static final long DETAIL_STATEMENTS = 1;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderItemSnapshotBackfill orderItemSnapshotBackfill;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void seedOrders() throws InterruptedException {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        userId = userRepository.save(User.builder()
+                .name("Fetch Plan")
+                .email("fetch-plan@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            productIds.add(productRepository.save(Product.builder()
+                    .name("Fetch Plan Saree " + i)
+                    .price(new BigDecimal(1200 + i))
+                    .stock(1_000)
+                    .category("Women")
+                    .subcategory("Sarees")
+                    .images(new ArrayList<>(List.of("/img/" + i + "-a.jpg", "/img/" + i + "-b.jpg")))
+                    .videos(new ArrayList<>(List.of("/vid/" + i + ".mp4")))
+                    .attributes(new ArrayList<>(List.of(new ProductAttribute("Color", "Red"))))
+                    .isActive(true)
+                    .build()).getId());
+        }
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            orderService.createOrder(userId, CreateOrderRequest.builder()
+                    .items(List.of(
+                            CartItemDTO.builder().productId(productIds.get(i % PRODUCT_COUNT)).quantity(1).build(),
+                            CartItemDTO.builder().productId(productIds.get((i + 3) % PRODUCT_COUNT)).quantity(2).build()))
+                    .shippingAddress("12 MG Road, Bengaluru")
+                    .build());
+        }
+
+        // Invoices render in the background and their statements would land in the counts
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void orderPagesUseAFixedNumberOfStatements() {
+        for (int pageSize : new int[]{5, 10, 25}) {
+            Page<OrderDTO> all = count(PAGE_STATEMENTS, () -> orderService.getAllOrders(0, pageSize));
+            assertThat(all.getContent()).hasSize(pageSize);
+            assertThat(all.getContent()).allSatisfy(order -> assertThat(order.getItems())
+                    .hasSize(2)
+                    .allSatisfy(item -> assertThat(item.getProductName()).startsWith("Fetch Plan Saree")));
+
+            Page<OrderDTO> mine = count(PAGE_STATEMENTS, () -> orderService.getUserOrders(userId, 0, pageSize));
+            assertThat(mine.getContent()).allSatisfy(order -> assertThat(order.getItems()).hasSize(2));
+
+            CursorPage<OrderDTO> slice = count(CURSOR_PAGE_STATEMENTS, () -> orderService.scrollOrders(null, pageSize));
+            assertThat(slice.getContent()).hasSize(pageSize);
+        }
+    }
+
+    @Test
+    void ordersByStatusAreWalkedSliceBySliceWithoutGapsOrRepeats() {
+        List<Long> shipped = orderRepository.findAll().stream().map(Order::getId)
+                .sorted(Comparator.reverseOrder()).limit(10).toList();
+        // One shared timestamp, so only the id keeps slices apart
+        jdbcTemplate.update("UPDATE orders SET status = 'SHIPPED', created_at = ? WHERE id IN (" +
+                        String.join(",", shipped.stream().map(String::valueOf).toList()) + ")",
+                Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            String after = cursor;
+            CursorPage<OrderDTO> slice = count(CURSOR_PAGE_STATEMENTS,
+                    () -> orderService.getOrdersByStatus(OrderStatus.SHIPPED, after, 4));
+            assertThat(slice.getContent()).allSatisfy(order -> {
+                assertThat(order.getStatus()).isEqualTo("SHIPPED");
+                assertThat(order.getUserId()).isEqualTo(userId);
+                assertThat(order.getItems()).hasSize(2)
+                        .allSatisfy(item -> assertThat(item.getProductName()).startsWith("Fetch Plan Saree"));
+            });
+            slice.getContent().forEach(order -> walked.add(order.getId()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(walked).containsExactlyElementsOf(shipped);
+        assertThat(orderService.getOrdersByStatus(OrderStatus.PENDING, null, 100).getContent())
+                .hasSize(ORDER_COUNT - shipped.size());
+    }
+
+    @Test
+    void orderDetailIsOneFetchPlan() {
+        Long orderId = orderRepository.findAll().get(0).getId();
+
+        OrderDTO order = count(DETAIL_STATEMENTS, () -> orderService.getOrderById(orderId));
+
+        assertThat(order.getUserId()).isEqualTo(userId);
+        assertThat(order.getItems()).hasSize(2);
+    }
+
+    @Test
+    void orderHistoryShowsWhatWasBought() {
+        Long orderId = orderRepository.findAll().get(0).getId();
+        String boughtAs = orderService.getOrderById(orderId).getItems().get(0).getProductName();
+        jdbcTemplate.update("UPDATE products SET name = CONCAT(name, ' (new season)')");
+
+        OrderDTO order = orderService.getOrderById(orderId);
+
+        assertThat(order.getItems().get(0).getProductName()).isEqualTo(boughtAs);
+        assertThat(order.getItems().get(0).getProductImage()).endsWith("-a.jpg");
+    }
+
+    @Test
+    void backfillFillsMissingSnapshots() {
+        jdbcTemplate.update("UPDATE order_items SET product_name = NULL, product_image = NULL");
+
+        orderItemSnapshotBackfill.backfill();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items WHERE product_name IS NULL OR product_image IS NULL", Long.class)).isZero();
+        assertThat(orderService.getAllOrders(0, ORDER_COUNT).getContent()).allSatisfy(order ->
+                assertThat(order.getItems()).allSatisfy(item -> assertThat(item.getProductName()).startsWith("Fetch Plan Saree")));
+    }
+
+    @Test
+    void backfillOnlyAddsTheCategoryToItemsThatHaveTheRestOfTheSnapshot() {
+        jdbcTemplate.update("UPDATE order_items SET product_category = NULL");
+        jdbcTemplate.update("UPDATE products SET name = CONCAT(name, ' (new season)'), category = 'Festive'");
+
+        orderItemSnapshotBackfill.backfill();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items WHERE product_category <> 'Festive' OR product_name LIKE '%(new season)'",
+                Long.class)).isZero();
+    }
+
+    private <T> T count(long expectedStatements, Supplier<T> call) {
+        statistics.clear();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expectedStatements);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.exception.BadRequestException;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many threads checking out the same two SKUs, with the cart lines in either order.
+// The conditional stock decrement must let exactly the available stock get sold.
+@Slf4j
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    private static final int STOCK = 40;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+    private Long firstProductId;
+    private Long secondProductId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(User.builder()
+                .name("Load Test")
+                .email("load-test@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        firstProductId = productRepository.save(product("Silk Saree")).getId();
+        secondProductId = productRepository.save(product("Cotton Dupatta")).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean reversed = t % 2 == 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        orderService.createOrder(userId, cart(reversed));
+                        placed.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        executor.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        log.info("{} checkout attempts in {} ms ({} per second): {} placed, {} rejected",
+                attempts, elapsedMillis, attempts * 1000L / elapsedMillis, placed.get(), rejected.get());
+
+        assertThat(unexpected).isEmpty();
+        assertThat(placed.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(attempts - STOCK);
+        assertThat(productRepository.findById(firstProductId).orElseThrow().getStock()).isZero();
+        assertThat(productRepository.findById(secondProductId).orElseThrow().getStock()).isZero();
+        assertThat(orderRepository.count()).isEqualTo(STOCK);
+    }
+
+    private CreateOrderRequest cart(boolean reversed) {
+        List<CartItemDTO> items = new ArrayList<>(List.of(
+                CartItemDTO.builder().productId(firstProductId).quantity(1).build(),
+                CartItemDTO.builder().productId(secondProductId).quantity(1).build()));
+        if (reversed) Collections.reverse(items);
+        return CreateOrderRequest.builder().items(items).shippingAddress("12 MG Road, Pune").build();
+    }
+
+    private Product product(String name) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal("1999.00"))
+                .stock(STOCK)
+                .category("Women")
+                .subcategory("Ethnic")
+                .images(new ArrayList<>())
+                .videos(new ArrayList<>())
+                .attributes(new ArrayList<>())
+                .isActive(true)
+                .build();
+    }
+}
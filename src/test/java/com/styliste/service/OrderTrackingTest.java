@@ -0,0 +1,162 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.TrackingDTO;
+import com.styliste.dto.UpdateOrderStatusRequest;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.exception.ResourceNotFoundException;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Public tracking lookups: cached snapshots that follow status and number changes, and the
+// startup cleanup that leaves each tracking number on one order so the unique index can be built.
+@SpringBootTest
+class OrderTrackingTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TrackingNumberCleanup trackingNumberCleanup;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void placeOrders() throws InterruptedException {
+        Long userId = userRepository.save(User.builder()
+                .name("Tracking Test")
+                .email("tracking@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        Long productId = productRepository.save(Product.builder()
+                .name("Tracking Lehenga")
+                .price(new BigDecimal("5200.00"))
+                .stock(100)
+                .category("Women")
+                .isActive(true)
+                .build()).getId();
+
+        CreateOrderRequest request = CreateOrderRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(1).build()))
+                .shippingAddress("3 Park Street, Kolkata")
+                .build();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(orderService.createOrder(userId, request).getId());
+        }
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        restoreIndex();
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void cachedSnapshotFollowsStatusAndNumberChanges() {
+        Long orderId = orderIds.get(0);
+        orderService.updateOrderStatus(orderId, status("SHIPPED", "TRK-FIRST"));
+        assertThat(orderService.trackOrder("TRK-FIRST").getStatus()).isEqualTo("SHIPPED");
+        // Polled before the number is assigned, so "not found" is cached too
+        assertThatThrownBy(() -> orderService.trackOrder("TRK-SECOND")).isInstanceOf(ResourceNotFoundException.class);
+
+        orderService.updateOrderStatus(orderId, status("DELIVERED", "TRK-SECOND"));
+
+        TrackingDTO tracking = orderService.trackOrder("TRK-SECOND");
+        assertThat(tracking.getOrderId()).isEqualTo(orderId);
+        assertThat(tracking.getStatus()).isEqualTo("DELIVERED");
+        assertThat(tracking.getItemCount()).isEqualTo(1);
+        assertThatThrownBy(() -> orderService.trackOrder("TRK-FIRST")).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void cleanupLeavesEachTrackingNumberOnOneOrder() {
+        // What an orders table looked like before uk_orders_tracking_number
+        dropIndex();
+        setTrackingNumber(orderIds.get(0), "TRK-SHARED");
+        setTrackingNumber(orderIds.get(1), " TRK-SHARED ");
+        setTrackingNumber(orderIds.get(2), "TRK-SHARED");
+        setTrackingNumber(orderIds.get(3), "   ");
+        setTrackingNumber(orderIds.get(4), "TRK-OWN");
+
+        trackingNumberCleanup.cleanUp();
+
+        assertThat(trackingNumbers()).containsExactly("TRK-SHARED", null, null, null, "TRK-OWN");
+        // Nothing stands in the way of the index any more
+        restoreIndex();
+    }
+
+    @Test
+    void cleanupIsSkippedOnceTheIndexExists() {
+        setTrackingNumber(orderIds.get(0), " TRK-PADDED ");
+
+        trackingNumberCleanup.cleanUp();
+
+        assertThat(trackingNumbers().get(0)).isEqualTo(" TRK-PADDED ");
+    }
+
+    private void dropIndex() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS uk_orders_tracking_number");
+        jdbcTemplate.execute("ALTER TABLE orders DROP CONSTRAINT IF EXISTS uk_orders_tracking_number");
+    }
+
+    private void restoreIndex() {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_orders_tracking_number ON orders (tracking_number)");
+    }
+
+    private void setTrackingNumber(Long orderId, String trackingNumber) {
+        jdbcTemplate.update("UPDATE orders SET tracking_number = ? WHERE id = ?", trackingNumber, orderId);
+    }
+
+    private List<String> trackingNumbers() {
+        return orderIds.stream()
+                .map(id -> jdbcTemplate.queryForObject("SELECT tracking_number FROM orders WHERE id = ?", String.class, id))
+                .toList();
+    }
+
+    private static UpdateOrderStatusRequest status(String status, String trackingNumber) {
+        return UpdateOrderStatusRequest.builder().status(status).trackingNumber(trackingNumber).build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.UpdateProductRequest;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Product detail reads come from the cache until a write to that product evicts it, including
+// the stock taken by an order and a read racing a write's transaction.
+@SpringBootTest
+class ProductCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void seedProduct() {
+        productId = productRepository.save(Product.builder()
+                .name("Cached Sherwani")
+                .price(new BigDecimal("8999.00"))
+                .stock(5)
+                .category("Men")
+                .isActive(true)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void removeProducts() {
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReadsAreHitsUntilTheProductIsUpdated() {
+        long hits = productCache.stats().getHits();
+
+        productService.getProductById(productId);
+        productService.getProductById(productId);
+        assertThat(productCache.stats().getHits()).isEqualTo(hits + 1);
+
+        productService.updateProduct(productId, UpdateProductRequest.builder().name("Cached Silk Sherwani").build());
+        assertThat(productService.getProductById(productId).getName()).isEqualTo("Cached Silk Sherwani");
+
+        productService.softDeleteProduct(productId);
+        assertThat(productService.getProductById(productId).getIsActive()).isFalse();
+    }
+
+    @Test
+    void placingAnOrderEvictsTheStockItTook() throws InterruptedException {
+        assertThat(productService.getProductById(productId).getStock()).isEqualTo(5);
+        Long userId = userRepository.save(User.builder()
+                .name("Cache Test")
+                .email("cache@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+
+        orderService.createOrder(userId, CreateOrderRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(2).build()))
+                .shippingAddress("3 MG Road, Pune")
+                .build());
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+
+        assertThat(productService.getProductById(productId).getStock()).isEqualTo(3);
+    }
+
+    @Test
+    void readRacingAWriteDoesNotKeepTheOldRowCached() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE products SET name = 'Renamed Sherwani' WHERE id = ?", productId);
+            productCache.invalidate(productId);
+
+            // Another request reads before the commit and caches what it sees, the old name
+            String seen = CompletableFuture.supplyAsync(() -> productService.getProductById(productId).getName()).join();
+            assertThat(seen).isEqualTo("Cached Sherwani");
+        });
+
+        assertThat(productService.getProductById(productId).getName()).isEqualTo("Renamed Sherwani");
+    }
+}
@@ -0,0 +1,143 @@
+package com.styliste.service;
+
+import com.styliste.dto.ProductDTO;
+import com.styliste.entity.Product;
+import com.styliste.entity.ProductAttribute;
+import com.styliste.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compares the entity-based listing (EAGER collections loaded with each page of products) with the
+// projection + batched IN (...) path in ProductService, by statement count and latency.
+@Slf4j
+@SpringBootTest
+class ProductListingBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 250;
+    private static final int[] PAGE_SIZES = {12, 48, 200};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+    // images, videos, attributes
+    private static final int COLLECTIONS = 3;
+    // @BatchSize on Product's collections
+    private static final int ENTITY_BATCH_SIZE = 100;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seedProducts() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.add(Product.builder()
+                    .name("Benchmark Kurti " + i)
+                    .description("Cotton kurti number " + i)
+                    .price(new BigDecimal(500 + i))
+                    .stock(10)
+                    .category("Women")
+                    .subcategory("Kurtis")
+                    .images(new ArrayList<>(List.of("/img/" + i + "-a.jpg", "/img/" + i + "-b.jpg", "/img/" + i + "-c.jpg")))
+                    .videos(new ArrayList<>(List.of("/vid/" + i + ".mp4", "/vid/" + i + "-b.mp4")))
+                    .attributes(new ArrayList<>(List.of(
+                            new ProductAttribute("Size", "M"),
+                            new ProductAttribute("Size", "L"),
+                            new ProductAttribute("Color", "Red"))))
+                    .isActive(true)
+                    .build());
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void removeProducts() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void listingPathUsesConstantStatementCountPerPage() {
+        for (int pageSize : PAGE_SIZES) {
+            PageRequest pageable = PageRequest.of(0, pageSize, Sort.by("createdAt").descending());
+
+            Result before = measure(() -> transactionTemplate.execute(status ->
+                    productRepository.findAll(pageable).map(this::touchCollections)));
+            Result after = measure(() -> productService.getAllProducts(0, pageSize));
+
+            log.info("Page of {}: entity path {} statements / {} us, listing path {} statements / {} us",
+                    pageSize, before.statements, before.micros, after.statements, after.micros);
+
+            // Listing path: page + count + one IN (...) per collection, whatever the page size.
+            // Entity path: page + count + one IN (...) per collection per @BatchSize of owners.
+            long entityBatches = (pageSize + ENTITY_BATCH_SIZE - 1) / ENTITY_BATCH_SIZE;
+            assertThat(after.statements).isEqualTo(2 + COLLECTIONS);
+            assertThat(before.statements).isEqualTo(2 + COLLECTIONS * entityBatches);
+        }
+    }
+
+    @Test
+    void listingPathReturnsSameCollectionsAsEntityPath() {
+        Page<ProductDTO> page = productService.getAllProducts(0, 48);
+        assertThat(page.getContent()).hasSize(48);
+        assertThat(page.getTotalElements()).isEqualTo(PRODUCT_COUNT);
+
+        for (ProductDTO listed : page.getContent()) {
+            Product product = transactionTemplate.execute(status ->
+                    touchCollections(productRepository.findById(listed.getId()).orElseThrow()));
+            assertThat(listed.getImages()).containsExactlyInAnyOrderElementsOf(product.getImages());
+            assertThat(listed.getVideos()).containsExactlyInAnyOrderElementsOf(product.getVideos());
+            assertThat(listed.getAttributes()).hasSameSizeAs(product.getAttributes());
+        }
+    }
+
+    private Product touchCollections(Product product) {
+        product.getImages().size();
+        product.getVideos().size();
+        product.getAttributes().size();
+        return product;
+    }
+
+    private Result measure(Supplier<?> listing) {
+        for (int i = 0; i < WARMUP_RUNS; i++) listing.get();
+
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) listing.get();
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(statistics.getPrepareStatementCount() / MEASURED_RUNS, elapsed / MEASURED_RUNS / 1_000);
+    }
+
+    private record Result(long statements, long micros) {
+    }
+}
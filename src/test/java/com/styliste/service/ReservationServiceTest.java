@@ -0,0 +1,128 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateReservationRequest;
+import com.styliste.dto.ReservationDTO;
+import com.styliste.entity.Product;
+import com.styliste.exception.BadRequestException;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Reserved stock is off the shelf until the reservation is consumed, released or expires;
+// expiry puts it back once, however often the timer or a restart brings the reservation up again.
+@SpringBootTest
+class ReservationServiceTest {
+
+    private static final Long USER_ID = 42L;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void seedProduct() {
+        productId = productRepository.save(Product.builder()
+                .name("Reserved Anarkali")
+                .price(new BigDecimal("3299.00"))
+                .stock(10)
+                .category("Women")
+                .isActive(true)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void removeReservations() {
+        reservationRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void expiredReservationReturnsItsStockExactlyOnce() throws InterruptedException {
+        ReservationDTO reservation = reserve(3);
+        assertThat(stock()).isEqualTo(7);
+
+        expire(reservation.getId());
+        assertThat(stock()).isEqualTo(10);
+        assertThat(reservationService.getReservation(reservation.getId(), USER_ID).getStatus()).isEqualTo("EXPIRED");
+
+        // A restart only re-arms active reservations, and releasing an expired one is a no-op
+        reservationService.loadActiveReservations();
+        Thread.sleep(1_100);
+        reservationService.expireDue();
+        reservationService.releaseReservation(reservation.getId(), USER_ID);
+        assertThat(stock()).isEqualTo(10);
+    }
+
+    @Test
+    void consumeAfterExpiryFails() throws InterruptedException {
+        ReservationDTO reservation = reserve(2);
+
+        expire(reservation.getId());
+
+        assertThatThrownBy(() -> reservationService.consume(reservation.getId(), USER_ID))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Reservation is no longer active: " + reservation.getId());
+        assertThat(stock()).isEqualTo(10);
+    }
+
+    @Test
+    void consumePastTheDeadlineFailsEvenBeforeTheTimerFires() {
+        ReservationDTO reservation = reserve(2);
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), reservation.getId());
+
+        assertThatThrownBy(() -> reservationService.consume(reservation.getId(), USER_ID))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Reservation has expired: " + reservation.getId());
+        // Still held; the timer gives it back
+        assertThat(stock()).isEqualTo(8);
+    }
+
+    private ReservationDTO reserve(int quantity) {
+        return reservationService.createReservation(USER_ID, CreateReservationRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(quantity).build()))
+                .build());
+    }
+
+    // Backdates the deadline and re-arms the timer the way a restart would; it fires on the next tick
+    private void expire(String reservationId) throws InterruptedException {
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), reservationId);
+        reservationService.loadActiveReservations();
+
+        long giveUpAt = System.currentTimeMillis() + 10_000;
+        while (!"EXPIRED".equals(reservationService.getReservation(reservationId, USER_ID).getStatus())) {
+            assertThat(System.currentTimeMillis()).as("reservation expired in time").isLessThan(giveUpAt);
+            Thread.sleep(50);
+            reservationService.expireDue();
+        }
+    }
+
+    private int stock() {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+}
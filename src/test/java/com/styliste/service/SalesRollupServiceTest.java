@@ -0,0 +1,192 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.SalesRollupDTO;
+import com.styliste.dto.UpdateOrderStatusRequest;
+import com.styliste.dto.UpdateProductRequest;
+import com.styliste.entity.Product;
+import com.styliste.entity.SalesRollupType;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Rollups move with order creates and status changes once the pending deltas are flushed,
+// keep revenue under the category a product was sold in, and a backfill rebuilds the same
+// totals from the orders.
+@SpringBootTest
+class SalesRollupServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long saree;
+    private Long kurta;
+
+    @BeforeEach
+    void seedCatalog() {
+        clearRollups();
+        userId = userRepository.save(User.builder()
+                .name("Rollup Test")
+                .email("rollups@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        saree = productRepository.save(product("Rollup Saree", "Women", "2000.00")).getId();
+        kurta = productRepository.save(product("Rollup Kurta", "Men", "500.00")).getId();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        clearRollups();
+    }
+
+    @Test
+    void totalsFollowNewOrdersAndStatusChanges() throws InterruptedException {
+        Long first = placeOrder(2, 1);
+        placeOrder(1, 0);
+        salesRollupService.flush();
+
+        assertThat(salesRollupService.getRevenue(SalesRollupType.DAILY, TODAY, TODAY))
+                .extracting(SalesRollupDTO::getOrders, SalesRollupDTO::getUnits, row -> row.getRevenue().intValue())
+                .containsExactly(tuple(2L, 4L, 6500));
+        assertThat(salesRollupService.getBreakdown(SalesRollupType.CATEGORY_DAILY, TODAY, TODAY, 10))
+                .extracting(SalesRollupDTO::getKey, SalesRollupDTO::getOrders, row -> row.getRevenue().intValue())
+                .containsExactly(tuple("Women", 2L, 6000), tuple("Men", 1L, 500));
+
+        // A cancelled order stops counting as a sale but still shows up per status
+        orderService.updateOrderStatus(first, UpdateOrderStatusRequest.builder().status("CANCELLED").build());
+        salesRollupService.flush();
+
+        assertThat(salesRollupService.getRevenue(SalesRollupType.DAILY, TODAY, TODAY))
+                .extracting(SalesRollupDTO::getOrders, SalesRollupDTO::getUnits, row -> row.getRevenue().intValue())
+                .containsExactly(tuple(1L, 1L, 2000));
+        assertThat(salesRollupService.getBreakdown(SalesRollupType.PRODUCT_DAILY, TODAY, TODAY, 10))
+                .extracting(SalesRollupDTO::getLabel, SalesRollupDTO::getUnits)
+                .contains(tuple("Rollup Saree", 1L))
+                .doesNotContain(tuple("Rollup Kurta", 1L));
+        assertThat(salesRollupService.getBreakdown(SalesRollupType.STATUS_DAILY, TODAY, TODAY, 10))
+                .extracting(SalesRollupDTO::getKey, SalesRollupDTO::getOrders)
+                .containsExactlyInAnyOrder(tuple("PENDING", 1L), tuple("CANCELLED", 1L));
+    }
+
+    @Test
+    void revenueStaysWithTheCategoryTheProductWasSoldIn() throws InterruptedException {
+        Long shipped = placeOrder(1, 0);
+        Long cancelled = placeOrder(1, 0);
+        productService.updateProduct(saree, UpdateProductRequest.builder().category("Bridal").build());
+
+        // Each change takes the order out of PENDING under the category it was counted in
+        orderService.updateOrderStatus(shipped, UpdateOrderStatusRequest.builder().status("SHIPPED").build());
+        orderService.updateOrderStatus(cancelled, UpdateOrderStatusRequest.builder().status("CANCELLED").build());
+        salesRollupService.flush();
+
+        assertThat(salesRollupService.getBreakdown(SalesRollupType.CATEGORY_DAILY, TODAY, TODAY, 10))
+                .extracting(SalesRollupDTO::getKey, SalesRollupDTO::getOrders, row -> row.getRevenue().intValue())
+                .containsExactly(tuple("Women", 1L, 2000));
+    }
+
+    @Test
+    void backfillReplacesTheTableWithTotalsRebuiltFromOrders() throws InterruptedException {
+        Long first = placeOrder(2, 1);
+        placeOrder(1, 0);
+        orderService.updateOrderStatus(first, UpdateOrderStatusRequest.builder().status("DELIVERED").build());
+        salesRollupService.flush();
+        List<List<Object>> incremental = rollupRows();
+
+        // A stray row the orders don't account for, and a product that has changed category since
+        jdbcTemplate.update("INSERT INTO sales_rollups (type, bucket_start, dimension_key, order_count, units, revenue) " +
+                "VALUES ('DAILY', ?, '', 99, 99, 99)", Timestamp.valueOf(TODAY.minusDays(30).atStartOfDay()));
+        productService.updateProduct(saree, UpdateProductRequest.builder().category("Bridal").build());
+
+        salesRollupService.backfill();
+
+        assertThat(rollupRows()).isEqualTo(incremental);
+    }
+
+    private Long placeOrder(int sarees, int kurtas) throws InterruptedException {
+        List<CartItemDTO> items = new ArrayList<>();
+        if (sarees > 0) items.add(CartItemDTO.builder().productId(saree).quantity(sarees).build());
+        if (kurtas > 0) items.add(CartItemDTO.builder().productId(kurta).quantity(kurtas).build());
+        Long orderId = orderService.createOrder(userId, CreateOrderRequest.builder()
+                .items(items)
+                .shippingAddress("12 Anna Salai, Chennai")
+                .build()).getId();
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+        return orderId;
+    }
+
+    // Zero rows left behind by a cancelled order are dropped by a backfill, so compare without them
+    private List<List<Object>> rollupRows() {
+        return jdbcTemplate.query("SELECT type, bucket_start, dimension_key, order_count, units, revenue FROM sales_rollups " +
+                        "WHERE order_count <> 0 OR units <> 0 OR revenue <> 0 ORDER BY type, bucket_start, dimension_key",
+                (rs, row) -> List.of(rs.getString(1), rs.getTimestamp(2), rs.getString(3), rs.getLong(4), rs.getLong(5),
+                        rs.getBigDecimal(6).stripTrailingZeros()));
+    }
+
+    private void clearRollups() {
+        salesRollupService.flush();
+        jdbcTemplate.update("DELETE FROM sales_rollups");
+    }
+
+    private static Product product(String name, String category, String price) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .stock(100)
+                .category(category)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.styliste.service;
+
+import com.styliste.dto.CartItemDTO;
+import com.styliste.dto.CreateAppointmentRequest;
+import com.styliste.dto.CreateOrderRequest;
+import com.styliste.dto.OrderStatisticsDTO;
+import com.styliste.dto.UpdateAppointmentRequest;
+import com.styliste.dto.UpdateOrderStatusRequest;
+import com.styliste.entity.AppointmentStatus;
+import com.styliste.entity.OrderStatus;
+import com.styliste.entity.Product;
+import com.styliste.entity.User;
+import com.styliste.entity.UserRole;
+import com.styliste.repository.AppointmentRepository;
+import com.styliste.repository.InvoiceRepository;
+import com.styliste.repository.OrderRepository;
+import com.styliste.repository.ProductRepository;
+import com.styliste.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// In-memory counter mode: counters move when a status change commits (not when it rolls
+// back), every status is reported, and reconcile() catches up with writes made behind the
+// services' back.
+@SpringBootTest(properties = "statistics.in-memory-counters=true")
+class StatisticsServiceTest {
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+    private Long productId;
+
+    @BeforeEach
+    void seedCustomer() {
+        userId = userRepository.save(User.builder()
+                .name("Statistics Test")
+                .email("statistics@styliste.test")
+                .password("not-used")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()).getId();
+        productId = productRepository.save(Product.builder()
+                .name("Statistics Kurta")
+                .price(new BigDecimal("1299.00"))
+                .stock(100)
+                .category("Men")
+                .isActive(true)
+                .build()).getId();
+        statisticsService.reconcile();
+    }
+
+    @AfterEach
+    void removeOrders() {
+        invoiceRepository.deleteAll();
+        orderRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        statisticsService.reconcile();
+    }
+
+    @Test
+    void orderCountersFollowCreatesAndStatusChanges() throws InterruptedException {
+        Map<OrderStatus, Long> before = statisticsService.orderCounts();
+
+        Long first = placeOrder();
+        placeOrder();
+        orderService.updateOrderStatus(first, UpdateOrderStatusRequest.builder().status("SHIPPED").build());
+
+        OrderStatisticsDTO stats = orderService.getOrderStatistics();
+        assertThat(stats.getByStatus()).containsOnlyKeys(Arrays.stream(OrderStatus.values()).map(Enum::name).toList());
+        assertThat(stats.getPendingOrders()).isEqualTo(before.get(OrderStatus.PENDING) + 1);
+        assertThat(stats.getShippedOrders()).isEqualTo(before.get(OrderStatus.SHIPPED) + 1);
+        assertThat(stats.getTotalOrders()).isEqualTo(total(before) + 2);
+    }
+
+    @Test
+    void rolledBackChangeLeavesTheCountersAlone() throws InterruptedException {
+        Long orderId = placeOrder();
+        Map<OrderStatus, Long> before = statisticsService.orderCounts();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.updateOrderStatus(orderId, UpdateOrderStatusRequest.builder().status("CANCELLED").build());
+            status.setRollbackOnly();
+        });
+
+        assertThat(statisticsService.orderCounts()).isEqualTo(before);
+    }
+
+    @Test
+    void reconcilePicksUpWritesTheCountersMissed() throws InterruptedException {
+        Long orderId = placeOrder();
+        Map<OrderStatus, Long> before = statisticsService.orderCounts();
+
+        // Another instance (or a manual fix) changes the row; this JVM's counters don't see it
+        jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED' WHERE id = ?", orderId);
+        assertThat(statisticsService.orderCounts()).isEqualTo(before);
+
+        statisticsService.reconcile();
+        Map<OrderStatus, Long> after = statisticsService.orderCounts();
+        assertThat(after.get(OrderStatus.PENDING)).isEqualTo(before.get(OrderStatus.PENDING) - 1);
+        assertThat(after.get(OrderStatus.DELIVERED)).isEqualTo(before.get(OrderStatus.DELIVERED) + 1);
+    }
+
+    @Test
+    void appointmentCountersFollowCreateUpdateAndCancel() {
+        Map<AppointmentStatus, Long> before = statisticsService.appointmentCounts();
+
+        Long confirmed = bookAppointment();
+        Long cancelled = bookAppointment();
+        appointmentService.updateAppointment(confirmed, UpdateAppointmentRequest.builder().status("CONFIRMED").build());
+        appointmentService.cancelAppointment(cancelled);
+
+        Map<AppointmentStatus, Long> after = statisticsService.appointmentCounts();
+        assertThat(after.get(AppointmentStatus.PENDING)).isEqualTo(before.get(AppointmentStatus.PENDING));
+        assertThat(after.get(AppointmentStatus.CONFIRMED)).isEqualTo(before.get(AppointmentStatus.CONFIRMED) + 1);
+        assertThat(after.get(AppointmentStatus.CANCELLED)).isEqualTo(before.get(AppointmentStatus.CANCELLED) + 1);
+        assertThat(appointmentService.getAppointmentStatistics().getByStatus()).hasSize(AppointmentStatus.values().length);
+    }
+
+    private Long placeOrder() throws InterruptedException {
+        Long orderId = orderService.createOrder(userId, CreateOrderRequest.builder()
+                .items(List.of(CartItemDTO.builder().productId(productId).quantity(1).build()))
+                .shippingAddress("5 Church Street, Bengaluru")
+                .build()).getId();
+        assertThat(invoiceService.awaitRenders(Duration.ofSeconds(30))).isTrue();
+        return orderId;
+    }
+
+    private Long bookAppointment() {
+        return appointmentService.createAppointment(userId, CreateAppointmentRequest.builder()
+                .appointmentDate(LocalDate.now().plusDays(3))
+                .appointmentTime(LocalTime.of(11, 30))
+                .serviceType("STYLING_CONSULTATION")
+                .build()).getId();
+    }
+
+    private static long total(Map<OrderStatus, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,114 @@
+package com.styliste.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A small wheel (4 buckets, 3 levels: 64 ticks before the top level overflows) so every
+// cascade and the overflow path are hit within a few hundred ticks
+class TimingWheelTest {
+
+    private static final int WHEEL_SIZE = 4;
+    private static final int LEVELS = 3;
+
+    @Test
+    void eachKeyFiresOnTheTickItIsDueWhateverLevelItStartsOn() {
+        for (long start : new long[]{0, 37}) {
+            TimingWheel<String> wheel = new TimingWheel<>(1, WHEEL_SIZE, LEVELS, start);
+            Map<String, Long> deadlines = new HashMap<>();
+            // Level 0, level 1, level 2, just past the top level, and many revolutions past it
+            for (long offset : new long[]{1, 3, 4, 5, 15, 16, 17, 63, 64, 65, 200, 1000}) {
+                deadlines.put("+" + offset, start + offset);
+                wheel.schedule("+" + offset, start + offset);
+            }
+
+            Map<String, Long> fired = new HashMap<>();
+            for (long now = start + 1; now <= start + 1100; now++) {
+                for (String key : wheel.advance(now)) {
+                    assertThat(fired.put(key, now)).as("%s fired twice", key).isNull();
+                }
+            }
+
+            assertThat(fired).as("start %d", start).isEqualTo(deadlines);
+            assertThat(wheel.size()).isZero();
+        }
+    }
+
+    @Test
+    void keysFireInDeadlineOrderWhenTheWheelJumpsAhead() {
+        Random random = new Random(42);
+        long start = 1_000;
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, WHEEL_SIZE, LEVELS, start);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int key = 0; key < 500; key++) {
+            long deadline = start + 1 + random.nextInt(5_000);
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+
+        long now = start;
+        Map<Integer, Long> fired = new HashMap<>();
+        while (wheel.size() > 0) {
+            long previous = now;
+            now += 1 + random.nextInt(50);
+
+            List<Long> expiredDeadlines = new ArrayList<>();
+            for (Integer key : wheel.advance(now)) {
+                long deadline = deadlines.get(key);
+                assertThat(deadline).as("key %d", key).isGreaterThan(previous).isLessThanOrEqualTo(now);
+                assertThat(fired.put(key, now)).as("key %d fired twice", key).isNull();
+                expiredDeadlines.add(deadline);
+            }
+            assertThat(expiredDeadlines).isSorted();
+        }
+
+        assertThat(fired).containsOnlyKeys(deadlines.keySet());
+    }
+
+    @Test
+    void cancelledKeysNeverFireBeforeOrAfterACascade() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, WHEEL_SIZE, LEVELS, 0);
+        wheel.schedule("still-on-level-2", 50);
+        wheel.schedule("cascaded-to-level-0", 50);
+        wheel.schedule("overflowed", 300);
+        wheel.schedule("kept", 50);
+
+        wheel.cancel("still-on-level-2");
+        assertThat(wheel.advance(10)).isEmpty();
+        wheel.cancel("overflowed");
+        // By tick 49 the level-2 bucket has been spread down to level 0
+        assertThat(wheel.advance(49)).isEmpty();
+        wheel.cancel("cascaded-to-level-0");
+
+        assertThat(wheel.advance(400)).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void reschedulingReplacesTheEarlierDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, WHEEL_SIZE, LEVELS, 0);
+        wheel.schedule("retry", 50);
+        wheel.schedule("retry", 20);
+
+        assertThat(wheel.advance(19)).isEmpty();
+        assertThat(wheel.advance(20)).containsExactly("retry");
+        assertThat(wheel.advance(100)).isEmpty();
+    }
+
+    @Test
+    void deadlinesAlreadyPastFireOnTheNextTickAndMillisRoundUpToTicks() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, WHEEL_SIZE, LEVELS, 10_000);
+        wheel.schedule("overdue", 5_000);
+        wheel.schedule("mid-tick", 12_001);
+
+        assertThat(wheel.advance(11_999)).containsExactly("overdue");
+        assertThat(wheel.advance(12_999)).isEmpty();
+        assertThat(wheel.advance(13_000)).containsExactly("mid-tick");
+    }
+}